@@ -0,0 +1,42 @@
+package hw8.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite with the GC profiler attached, so every result comes
+ * with its allocation rate next to throughput and latency percentiles.
+ *
+ * <p>Takes the usual JMH command line, for example
+ * {@code -p roads=2000000 -p shape=SCALE_FREE StreetSearcherBenchmark} to pick the
+ * network size and shape or a subset of benchmarks.</p>
+ */
+public final class Benchmarks {
+
+  private Benchmarks() {
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args JMH command line options
+   * @throws RunnerException if a benchmark fails
+   * @throws CommandLineOptionException if the options cannot be parsed
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .parent(commandLine)
+        .addProfiler(GCProfiler.class);
+    //run the whole suite unless some benchmarks were named
+    if (commandLine.getIncludes().isEmpty()) {
+      options.include(Benchmarks.class.getPackage().getName() + ".*");
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,65 @@
+package hw8.bench;
+
+import hw8.spp.NetworkGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic road networks for the benchmarks, made by NetworkGenerator and kept
+ * in memory so setup can pick endpoints and build graphs without reading a file.
+ */
+final class Networks {
+
+  /**
+   * One road of a generated network.
+   */
+  static final class Road {
+    final String from;
+    final String to;
+    final double length;
+    final String name;
+
+    Road(String from, String to, double length, String name) {
+      this.from = from;
+      this.to = to;
+      this.length = length;
+      this.name = name;
+    }
+  }
+
+  private Networks() {
+  }
+
+  /**
+   * Generate a network.
+   *
+   * @param shape topology of the network
+   * @param roads number of roads
+   * @param seed  seed, the same arguments always give the same network
+   * @return the roads of the network
+   */
+  static List<Road> generate(NetworkGenerator.Shape shape, int roads, long seed) {
+    List<Road> result = new ArrayList<>(roads);
+    NetworkGenerator.generate(shape, roads, seed,
+        (from, to, length, name) -> result.add(new Road(from, to, length, name)));
+    return result;
+  }
+
+  /**
+   * Write a network to a temporary file that is deleted when the JVM exits.
+   *
+   * @param shape topology of the network
+   * @param roads number of roads
+   * @param seed  seed, the same arguments always give the same network
+   * @return the file
+   * @throws IOException if the file cannot be written
+   */
+  static File write(NetworkGenerator.Shape shape, int roads, long seed) throws IOException {
+    File file = File.createTempFile("network", ".txt");
+    file.deleteOnExit();
+    NetworkGenerator.write(shape, roads, seed, file);
+    return file;
+  }
+}
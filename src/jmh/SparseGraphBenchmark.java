@@ -0,0 +1,93 @@
+package hw8.bench;
+
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import hw8.spp.NetworkGenerator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Whole-graph operations of SparseGraph on synthetic networks: building the graph
+ * with insert, walking every outgoing list, iterating edges() and clearLabels().
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SparseGraphBenchmark {
+
+  @Param({"GRID", "GEOMETRIC", "SCALE_FREE"})
+  public NetworkGenerator.Shape shape;
+
+  @Param({"20000", "200000"})
+  public int roads;
+
+  @Param({"1"})
+  public long seed;
+
+  private List<Networks.Road> network;
+  private Graph<String, String> graph;
+
+  @Setup
+  public void setup() {
+    network = Networks.generate(shape, roads, seed);
+    graph = build();
+  }
+
+  // Insert every road in both directions, the way StreetSearcher.loadNetwork does
+  private Graph<String, String> build() {
+    Graph<String, String> g = new SparseGraph<>();
+    Map<String, Vertex<String>> byName = new HashMap<>();
+    for (Networks.Road road : network) {
+      Vertex<String> from = byName.computeIfAbsent(road.from, g::insert);
+      Vertex<String> to = byName.computeIfAbsent(road.to, g::insert);
+      g.insert(from, to, road.name);
+      g.insert(to, from, road.name);
+    }
+    return g;
+  }
+
+  @Benchmark
+  public Graph<String, String> insert() {
+    return build();
+  }
+
+  @Benchmark
+  public void outgoing(Blackhole blackhole) {
+    for (Vertex<String> v : graph.vertices()) {
+      for (Edge<String> e : graph.outgoing(v)) {
+        blackhole.consume(e);
+      }
+    }
+  }
+
+  @Benchmark
+  public void edges(Blackhole blackhole) {
+    for (Edge<String> e : graph.edges()) {
+      blackhole.consume(e);
+    }
+  }
+
+  @Benchmark
+  public void clearLabels() {
+    graph.clearLabels();
+  }
+}
@@ -0,0 +1,89 @@
+package hw8.bench;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.NetworkGenerator;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a synthetic network from its text file and answering random
+ * point-to-point queries on it with DijkstraStreetSearcher.
+ * SampleTime mode reports the latency percentiles of single queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StreetSearcherBenchmark {
+
+  // number of random endpoint pairs cycled through by findShortestPath
+  private static final int QUERIES = 1024;
+
+  @Param({"GRID", "GEOMETRIC", "SCALE_FREE"})
+  public NetworkGenerator.Shape shape;
+
+  @Param({"20000", "200000"})
+  public int roads;
+
+  @Param({"1"})
+  public long seed;
+
+  private File network;
+  private StreetSearcher searcher;
+  private String[] starts;
+  private String[] ends;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<Networks.Road> generated = Networks.generate(shape, roads, seed);
+    network = Networks.write(shape, roads, seed);
+    searcher = new DijkstraStreetSearcher(new SparseGraph<>());
+    searcher.loadNetwork(network);
+
+    //pairs of endpoints of random roads, the same for every run with this seed
+    Random random = new Random(seed);
+    starts = new String[QUERIES];
+    ends = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      starts[i] = generated.get(random.nextInt(generated.size())).from;
+      ends[i] = generated.get(random.nextInt(generated.size())).to;
+    }
+  }
+
+  @Benchmark
+  public StreetSearcher loadNetwork() throws FileNotFoundException {
+    StreetSearcher fresh = new DijkstraStreetSearcher(new SparseGraph<>());
+    fresh.loadNetwork(network);
+    return fresh;
+  }
+
+  @Benchmark
+  public PathResult findShortestPath() {
+    int i = next;
+    next = (i + 1) % QUERIES;
+    return searcher.findShortestPath(starts[i], ends[i]);
+  }
+}
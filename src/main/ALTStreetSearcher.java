@@ -0,0 +1,56 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Graph;
+
+
+/**
+ * A* search over the CSR snapshot guided by ALT lower bounds from landmark
+ * distance tables. Unlike the coordinate heuristic of AStarStreetSearcher this
+ * needs nothing from the vertex names, so it works on any loaded network.
+ * The tables are built once per snapshot.
+ */
+public class ALTStreetSearcher extends AStarStreetSearcher {
+
+  private static final int DEFAULT_LANDMARKS = 8;
+
+  private final int numLandmarks;
+  private final Landmarks.Selection selection;
+  private Landmarks landmarks;
+
+  /**
+   * Creates a StreetSearcher object with 8 landmarks picked by the avoid heuristic.
+   *
+   * @param graph an implementation of Graph ADT.
+   */
+  public ALTStreetSearcher(Graph<String, String> graph) {
+    this(graph, DEFAULT_LANDMARKS, Landmarks.Selection.AVOID);
+  }
+
+  /**
+   * Creates a StreetSearcher object.
+   *
+   * @param graph an implementation of Graph ADT.
+   * @param numLandmarks number of landmarks, each costs two doubles per vertex
+   * @param selection how landmarks are picked
+   * @throws IllegalArgumentException if numLandmarks is negative
+   */
+  public ALTStreetSearcher(Graph<String, String> graph, int numLandmarks, Landmarks.Selection selection) {
+    super(graph);
+    if (numLandmarks < 0) {
+      throw new IllegalArgumentException("Number of landmarks must not be negative: " + numLandmarks);
+    }
+    this.numLandmarks = numLandmarks;
+    this.selection = selection;
+  }
+
+  @Override
+  protected void prepareHeuristic(CsrGraph<String, String> csr) {
+    landmarks = new Landmarks(csr, numLandmarks, selection, 0);
+  }
+
+  @Override
+  protected double heuristic(int u, int end) {
+    return landmarks.lowerBound(u, end);
+  }
+}
@@ -0,0 +1,254 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Graph;
+import java.util.Arrays;
+
+
+/**
+ * A* search over the CSR snapshot of the network, guided by the straight-line
+ * distance between the coordinates stored as vertex data ("x,y", for example
+ * "-76.6175,39.3004").
+ *
+ * <p>Coordinates are parsed once per snapshot into primitive arrays. Straight-line
+ * distance is turned into road length by the smallest ratio of road length to
+ * straight-line distance over all roads in the network, so the heuristic never
+ * overestimates, whatever units the coordinates and lengths are in. If some vertex
+ * data is not a coordinate pair the heuristic is 0 and the search is plain Dijkstra.
+ * Subclasses can plug in another consistent heuristic by overriding
+ * prepareHeuristic and heuristic; heuristic is called from many threads at once.</p>
+ *
+ * <p>prepareHeuristic runs when the first query sees a new snapshot. What it fills in
+ * is kept in plain fields, published to other threads by the volatile write of the
+ * prepared snapshot after it. That is only safe because loading or changing the
+ * network never overlaps with queries: a query still running on the old snapshot
+ * would read the coordinates of the new one.</p>
+ */
+public class AStarStreetSearcher extends StreetSearcher {
+
+  // snapshot the coordinates below were parsed from, written last so other threads see them
+  private volatile CsrGraph<String, String> prepared;
+  // projected coordinates of each vertex, indexed by snapshot id, only written by
+  // prepareHeuristic while no query runs
+  private double[] xs;
+  private double[] ys;
+  // road length per unit of straight-line distance, 0 disables the heuristic
+  private double scale;
+
+  // per-query state of each thread, reused from one query to the next
+  private final ThreadLocal<Search> searches = new ThreadLocal<>();
+
+  /**
+   * Creates a StreetSearcher object.
+   *
+   * @param graph an implementation of Graph ADT.
+   */
+  public AStarStreetSearcher(Graph<String, String> graph) {
+    super(graph);
+  }
+
+  @Override
+  protected boolean searchesSnapshot() {
+    return true;
+  }
+
+  @Override
+  protected PathResult search(String startName, String endName) {
+    CsrGraph<String, String> csr = prepare();
+    Search search = searches.get();
+    if (search == null || search.csr != csr) {
+      search = new Search(csr);
+      searches.set(search);
+    }
+    double[] distance = search.distance;
+    int[] road = search.road;
+    boolean[] settled = search.settled;
+    IndexedMinHeap heap = search.heap;
+    heap.resetCounters();
+
+    int start = csr.id(startName);
+    int end = csr.id(endName);
+
+    //the arrays of this thread are reset even if the search fails, or its next query would see them
+    try {
+      search.reach(start);
+      distance[start] = 0;
+      heap.insertOrDecrease(start,heuristic(start,end));
+
+      int numSettled = 0;
+      long relaxed = 0;
+      while (!heap.isEmpty()) {
+        int u = heap.poll();
+        settled[u] = true;
+        numSettled++;
+        if (u == end) {
+          break;
+        }
+        //heuristic is consistent, so a settled vertex never needs to be opened again
+        relaxed += csr.outEnd(u) - csr.outStart(u);
+        for (int e = csr.outStart(u); e < csr.outEnd(u); e++) {
+          int v = csr.target(e);
+          if (settled[v]) {
+            continue;
+          }
+          double d = distance[u] + csr.weight(e);
+          search.reach(v);
+          if (d < distance[v]) {
+            distance[v] = d;
+            road[v] = e;
+            heap.insertOrDecrease(v,d + heuristic(v,end));
+          }
+        }
+      }
+
+      int[] path = settled[end] ? search.path(start,end) : null;
+      double totalDist = distance[end];
+      queryStats().addRelaxed(relaxed).addHeap(heap);
+      return result(csr,start,path,totalDist,numSettled);
+    } finally {
+      search.reset();
+    }
+  }
+
+  /**
+   * Lower bound on the road length from u to end, must be consistent.
+   * @param u snapshot id of a vertex
+   * @param end snapshot id of the end vertex
+   * @return scaled straight-line distance from u to end
+   */
+  protected double heuristic(int u, int end) {
+    return scale * straightLine(u,end);
+  }
+
+  // Run prepareHeuristic once for the current snapshot, however many threads ask at once
+  private CsrGraph<String, String> prepare() {
+    CsrGraph<String, String> current = snapshot();
+    if (current != prepared) {
+      synchronized (this) {
+        if (current != prepared) {
+          prepareHeuristic(current);
+          prepared = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  //private class holding the per-query state of one thread, indexed by snapshot id and
+  //reset only where a query touched it
+  private static class Search {
+    final CsrGraph<String, String> csr;
+    final double[] distance;
+    final int[] road;
+    final boolean[] settled;
+    final IndexedMinHeap heap;
+    int[] touched = new int[16];
+    int numTouched = 0;
+
+    Search(CsrGraph<String, String> csr) {
+      int n = csr.numVertices();
+      this.csr = csr;
+      distance = new double[n];
+      Arrays.fill(distance,MAX_DISTANCE);
+      road = new int[n];
+      Arrays.fill(road,-1);
+      settled = new boolean[n];
+      heap = new IndexedMinHeap(n);
+    }
+
+    // Snapshot edge ids from end back to start, or null for a trip from a vertex to itself
+    int[] path(int start, int end) {
+      int count = 0;
+      for (int v = end; v != start; v = csr.source(road[v])) {
+        count++;
+      }
+      if (count == 0) {
+        return null;
+      }
+      int[] path = new int[count];
+      int i = 0;
+      for (int v = end; v != start; v = csr.source(road[v])) {
+        path[i++] = road[v];
+      }
+      return path;
+    }
+
+    // Mark v as touched by this query the first time it is reached
+    void reach(int v) {
+      if (distance[v] == MAX_DISTANCE && road[v] == -1) {
+        if (numTouched == touched.length) {
+          touched = Arrays.copyOf(touched,touched.length * 2);
+        }
+        touched[numTouched++] = v;
+      }
+    }
+
+    // Undo the changes of the last query so the arrays are ready for the next one
+    void reset() {
+      for (int i = 0; i < numTouched; i++) {
+        int v = touched[i];
+        distance[v] = MAX_DISTANCE;
+        road[v] = -1;
+        settled[v] = false;
+      }
+      numTouched = 0;
+      heap.clear();
+    }
+  }
+
+  /**
+   * Precompute what heuristic() needs, called once for every new snapshot.
+   * Fills xs, ys and scale from the vertex data of the snapshot.
+   * @param csr the snapshot queries will run on
+   */
+  protected void prepareHeuristic(CsrGraph<String, String> csr) {
+    int n = csr.numVertices();
+    xs = new double[n];
+    ys = new double[n];
+    double sumY = 0;
+    try {
+      for (int u = 0; u < n; u++) {
+        String name = csr.vertex(u);
+        int comma = name.indexOf(',');
+        xs[u] = Double.parseDouble(name.substring(0,comma));
+        ys[u] = Double.parseDouble(name.substring(comma + 1));
+        sumY += ys[u];
+      }
+    } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
+      //not coordinates, fall back to Dijkstra
+      Arrays.fill(xs,0);
+      Arrays.fill(ys,0);
+      scale = 0;
+      return;
+    }
+
+    //treat the pair as longitude,latitude and shrink longitude to keep distances about even
+    double meanY = n == 0 ? 0 : sumY / n;
+    if (Math.abs(meanY) <= 90) {
+      double shrink = Math.cos(Math.toRadians(meanY));
+      for (int u = 0; u < n; u++) {
+        xs[u] *= shrink;
+      }
+    }
+
+    //the smallest length per unit of straight-line distance keeps the heuristic admissible
+    double minRatio = Double.POSITIVE_INFINITY;
+    for (int u = 0; u < n; u++) {
+      for (int e = csr.outStart(u); e < csr.outEnd(u); e++) {
+        double straight = straightLine(u,csr.target(e));
+        if (straight > 0) {
+          minRatio = Math.min(minRatio,csr.weight(e) / straight);
+        }
+      }
+    }
+    //back off slightly so rounding can never make the heuristic overestimate
+    scale = minRatio == Double.POSITIVE_INFINITY ? 0 : minRatio * (1 - 1e-9);
+  }
+
+  // Straight-line distance between two vertices in projected units
+  private double straightLine(int u, int v) {
+    double dx = xs[u] - xs[v];
+    double dy = ys[u] - ys[v];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
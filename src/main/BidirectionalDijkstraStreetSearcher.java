@@ -0,0 +1,187 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.Vertex;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+
+/**
+ * Dijkstra's Algorithm run from both endpoints at once: forward from the start
+ * over outgoing roads and backward from the end over incoming roads.
+ * The search stops once no path through an unsettled vertex can beat the best
+ * meeting point found so far, which on long queries settles about half as many
+ * vertices as the one-sided search.
+ */
+public class BidirectionalDijkstraStreetSearcher extends StreetSearcher {
+
+  /**
+   * Creates a StreetSearcher object.
+   *
+   * @param graph an implementation of Graph ADT.
+   */
+  public BidirectionalDijkstraStreetSearcher(Graph<String, String> graph) {
+    super(graph);
+  }
+
+  @Override
+  protected PathResult search(String startName, String endName) {
+    Vertex<String> start = vertices.get(startName);
+    Vertex<String> end = vertices.get(endName);
+
+    Search search = new Search();
+    VertexEntry startEntry = search.reach(start);
+    startEntry.forwardDistance = 0;
+    search.forwardHeap.insertOrDecrease(startEntry.id,0);
+    VertexEntry endEntry = search.reach(end);
+    endEntry.backwardDistance = 0;
+    search.backwardHeap.insertOrDecrease(endEntry.id,0);
+    //a trip from a vertex to itself meets right away
+    search.meet(endEntry);
+
+    //stop once the two frontiers together cannot beat the best meeting point found so far
+    while (!search.forwardHeap.isEmpty() && !search.backwardHeap.isEmpty()
+        && search.forwardHeap.minKey() + search.backwardHeap.minKey() < search.bestDistance) {
+      //expand the smaller frontier
+      if (search.forwardHeap.size() <= search.backwardHeap.size()) {
+        search.settleForward();
+      } else {
+        search.settleBackward();
+      }
+    }
+
+    queryStats().addRelaxed(search.relaxed).addHeap(search.forwardHeap).addHeap(search.backwardHeap);
+    return result(start, search.path(), search.bestDistance, search.settled);
+  }
+
+  //private class holding the state of one query
+  private class Search {
+    IndexedMinHeap forwardHeap = new IndexedMinHeap();
+    IndexedMinHeap backwardHeap = new IndexedMinHeap();
+    //HashMap to keep track of reached vertices where key is the vertex, and value is the corresponding VertexEntry
+    HashMap<Vertex<String>,VertexEntry> allVertexEntries = new HashMap<>();
+    //VertexEntries indexed by their id in both heaps
+    List<VertexEntry> entriesById = new ArrayList<>();
+    //length of the shortest path found so far and the vertex where its two halves meet
+    double bestDistance = MAX_DISTANCE;
+    VertexEntry meeting = null;
+    //vertices settled and roads looked at on both sides
+    int settled = 0;
+    long relaxed = 0;
+
+    // Returns the VertexEntry of v, creating it the first time v is reached from either side
+    VertexEntry reach(Vertex<String> v) {
+      VertexEntry entry = allVertexEntries.get(v);
+      if (entry == null) {
+        entry = new VertexEntry(v,entriesById.size());
+        allVertexEntries.put(v,entry);
+        entriesById.add(entry);
+      }
+      return entry;
+    }
+
+    // Settle the closest vertex of the forward search and relax its outgoing roads
+    void settleForward() {
+      VertexEntry min = entriesById.get(forwardHeap.poll());
+      min.forwardSettled = true;
+      settled++;
+      for (Edge<String> road : graph.outgoing(min.vertex)) {
+        relaxed++;
+        VertexEntry destination = reach(graph.to(road));
+        if (destination.forwardSettled) {
+          continue;
+        }
+        double d = min.forwardDistance + length(road);
+        if (d < destination.forwardDistance) {
+          destination.forwardDistance = d;
+          destination.forwardRoad = road;
+          forwardHeap.insertOrDecrease(destination.id,d);
+        }
+        meet(destination);
+      }
+    }
+
+    // Settle the closest vertex of the backward search and relax its incoming roads
+    void settleBackward() {
+      VertexEntry min = entriesById.get(backwardHeap.poll());
+      min.backwardSettled = true;
+      settled++;
+      for (Edge<String> road : graph.incoming(min.vertex)) {
+        relaxed++;
+        VertexEntry origin = reach(graph.from(road));
+        if (origin.backwardSettled) {
+          continue;
+        }
+        double d = min.backwardDistance + length(road);
+        if (d < origin.backwardDistance) {
+          origin.backwardDistance = d;
+          origin.backwardRoad = road;
+          backwardHeap.insertOrDecrease(origin.id,d);
+        }
+        meet(origin);
+      }
+    }
+
+    // Record entry as the meeting point if the path through it beats the best one so far
+    void meet(VertexEntry entry) {
+      double d = entry.forwardDistance + entry.backwardDistance;
+      if (d < bestDistance) {
+        bestDistance = d;
+        meeting = entry;
+      }
+    }
+
+    // Path from end back to start, the order result() expects, or null if there is none
+    List<Edge<String>> path() {
+      if (meeting == null || bestDistance >= MAX_DISTANCE) {
+        return null;
+      }
+      //roads from the meeting point on to the end, in driving order
+      List<Edge<String>> toEnd = new ArrayList<>();
+      VertexEntry cur = meeting;
+      while (cur.backwardRoad != null) {
+        toEnd.add(cur.backwardRoad);
+        cur = allVertexEntries.get(graph.to(cur.backwardRoad));
+      }
+      List<Edge<String>> path = new ArrayList<>();
+      for (int i = toEnd.size() - 1; i >= 0; i--) {
+        path.add(toEnd.get(i));
+      }
+      //roads from the meeting point back to the start
+      cur = meeting;
+      while (cur.forwardRoad != null) {
+        path.add(cur.forwardRoad);
+        cur = allVertexEntries.get(graph.from(cur.forwardRoad));
+      }
+      //same as the one-sided search, a trip from a vertex to itself has no path
+      return path.isEmpty() ? null : path;
+    }
+  }
+
+  //private class which bundles a vertex with its distances from the start and to the end
+  private static class VertexEntry {
+    Vertex<String> vertex;
+    int id;
+    double forwardDistance;
+    double backwardDistance;
+    boolean forwardSettled;
+    boolean backwardSettled;
+    //road into this vertex on the forward path, and road out of it on the backward path
+    Edge<String> forwardRoad;
+    Edge<String> backwardRoad;
+
+    /**
+     * Constructor for new VertexEntry object.
+     * @param v the vertex
+     * @param id the id of this entry in both heaps
+     */
+    VertexEntry(Vertex<String> v, int id) {
+      this.vertex = v;
+      this.id = id;
+      this.forwardDistance = MAX_DISTANCE;
+      this.backwardDistance = MAX_DISTANCE;
+    }
+  }
+}
@@ -0,0 +1,784 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchy over a CSR snapshot of a road network.
+ *
+ * <p>Preprocessing contracts the vertices one by one, cheapest first by edge
+ * difference plus contracted neighbours. Contracting v adds a shortcut u -> w for
+ * every pair of neighbours whose shortest path runs through v, which a bounded
+ * witness search checks. A query is then a bidirectional Dijkstra that only climbs
+ * to vertices contracted later, so it settles a few hundred vertices at most.
+ * Shortcuts remember the two arcs they replace, and found paths are unpacked
+ * into edge ids of the snapshot.</p>
+ *
+ * <p>The hierarchy holds its snapshot and is Serializable, so it can be saved once
+ * with save(File) and loaded with load(File) without rebuilding.</p>
+ */
+public class ContractionHierarchy implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  // witness searches give up after settling this many vertices and add the shortcut
+  private static final int WITNESS_SETTLE_LIMIT = 500;
+  // cheaper limit used when only counting shortcuts to compute a priority
+  private static final int PRIORITY_SETTLE_LIMIT = 20;
+
+  private final CsrGraph<String, String> graph;
+  // rank[v] is the position of v in the contraction order
+  private final int[] rank;
+
+  // every arc ever created: original edges first, then shortcuts
+  // arcEdge is the snapshot edge id of an original arc, -1 for shortcuts
+  // arcFirst and arcSecond are the two arcs a shortcut stands for
+  private int[] arcEdge;
+  private int[] arcFirst;
+  private int[] arcSecond;
+
+  // upward arcs (to a higher rank) grouped by the vertex they leave
+  private int[] upOffsets;
+  private int[] upTargets;
+  private double[] upWeights;
+  private int[] upArcs;
+  // downward arcs (from a higher rank) grouped by the vertex they enter
+  private int[] downOffsets;
+  private int[] downSources;
+  private double[] downWeights;
+  private int[] downArcs;
+
+  // query state of each thread, rebuilt after loading
+  private transient ThreadLocal<Query> queries = ThreadLocal.withInitial(Query::new);
+
+  /**
+   * Preprocess a snapshot into a Contraction Hierarchy.
+   * @param graph snapshot of the network
+   */
+  public ContractionHierarchy(CsrGraph<String, String> graph) {
+    this.graph = graph;
+    this.rank = new int[graph.numVertices()];
+    new Builder().build();
+  }
+
+  /**
+   * Snapshot this hierarchy was built from.
+   * @return the snapshot, whose edge ids query() returns
+   */
+  public CsrGraph<String, String> graph() {
+    return graph;
+  }
+
+  /**
+   * Number of shortcuts added during preprocessing.
+   * @return shortcut count
+   */
+  public int numShortcuts() {
+    return arcEdge.length - graph.numEdges();
+  }
+
+  /**
+   * Shortest path between two vertices of the snapshot.
+   * Safe to call from many threads at once, each thread has its own search state.
+   * @param start snapshot id of the start vertex
+   * @param end snapshot id of the end vertex
+   * @return snapshot edge ids from end back to start, or null if there is no path
+   *         (or start and end are the same)
+   */
+  public int[] query(int start, int end) {
+    return queries.get().run(start, end);
+  }
+
+  /**
+   * Distances from every source to every target, by bucket-based many-to-many search:
+   * an upward search backward from each target leaves its distance in a bucket at
+   * every vertex it reaches, then an upward search forward from each source combines
+   * its distances with the buckets of the vertices it reaches. That is one upward
+   * search per source and per target instead of one query per pair.
+   * @param sources snapshot ids of the start vertices
+   * @param targets snapshot ids of the end vertices
+   * @return row-major matrix, entry i * targets.length + j is the distance from
+   *         sources[i] to targets[j], Double.POSITIVE_INFINITY if there is no path
+   */
+  public double[] distances(int[] sources, int[] targets) {
+    Buckets buckets = buckets(targets);
+    double[] matrix = new double[sources.length * targets.length];
+    for (int i = 0; i < sources.length; i++) {
+      buckets.distancesFrom(sources[i], matrix, i * targets.length);
+    }
+    return matrix;
+  }
+
+  /**
+   * First half of distances(): the upward searches backward from the targets, whose
+   * buckets then answer the rows of any number of sources.
+   * @param targets snapshot ids of the end vertices
+   * @return the buckets of the targets
+   */
+  public Buckets buckets(int[] targets) {
+    Query q = queries.get();
+    int n = rank.length;
+
+    //(vertex, target index, distance) for every vertex a backward search reaches
+    int[] entryVertex = new int[16];
+    int[] entryTarget = new int[16];
+    double[] entryDistance = new double[16];
+    int numEntries = 0;
+    for (int j = 0; j < targets.length; j++) {
+      q.climb(targets[j], false);
+      if (numEntries + q.numTouched > entryVertex.length) {
+        int length = Math.max(numEntries + q.numTouched, entryVertex.length * 2);
+        entryVertex = Arrays.copyOf(entryVertex, length);
+        entryTarget = Arrays.copyOf(entryTarget, length);
+        entryDistance = Arrays.copyOf(entryDistance, length);
+      }
+      for (int i = 0; i < q.numTouched; i++) {
+        int v = q.touched[i];
+        entryVertex[numEntries] = v;
+        entryTarget[numEntries] = j;
+        entryDistance[numEntries++] = q.backwardDistance[v];
+      }
+      q.reset();
+    }
+
+    //group the entries into one bucket per vertex
+    int[] bucketOffsets = new int[n + 1];
+    for (int i = 0; i < numEntries; i++) {
+      bucketOffsets[entryVertex[i] + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      bucketOffsets[v + 1] += bucketOffsets[v];
+    }
+    int[] next = Arrays.copyOf(bucketOffsets, n);
+    int[] bucketTarget = new int[numEntries];
+    double[] bucketDistance = new double[numEntries];
+    for (int i = 0; i < numEntries; i++) {
+      int slot = next[entryVertex[i]]++;
+      bucketTarget[slot] = entryTarget[i];
+      bucketDistance[slot] = entryDistance[i];
+    }
+    return new Buckets(targets.length, bucketOffsets, bucketTarget, bucketDistance);
+  }
+
+  /**
+   * Distances left at every vertex by the backward searches from a set of targets.
+   * Read-only once built, so rows may be filled from many threads at once.
+   */
+  public final class Buckets {
+    private final int numTargets;
+    // bucketTarget[bucketOffsets[v]..bucketOffsets[v+1]] are the targets reached at v
+    private final int[] bucketOffsets;
+    private final int[] bucketTarget;
+    private final double[] bucketDistance;
+
+    private Buckets(int numTargets, int[] bucketOffsets, int[] bucketTarget, double[] bucketDistance) {
+      this.numTargets = numTargets;
+      this.bucketOffsets = bucketOffsets;
+      this.bucketTarget = bucketTarget;
+      this.bucketDistance = bucketDistance;
+    }
+
+    /**
+     * Fill one row of a distance matrix with the distances from source to every target,
+     * by one upward search forward from source on the calling thread.
+     * @param source snapshot id of the start vertex
+     * @param matrix matrix to fill
+     * @param offset index in matrix of the distance to the first target
+     */
+    public void distancesFrom(int source, double[] matrix, int offset) {
+      Arrays.fill(matrix, offset, offset + numTargets, Double.POSITIVE_INFINITY);
+      Query q = queries.get();
+      q.climb(source, true);
+      for (int k = 0; k < q.numTouched; k++) {
+        int v = q.touched[k];
+        double d = q.forwardDistance[v];
+        for (int b = bucketOffsets[v]; b < bucketOffsets[v + 1]; b++) {
+          int cell = offset + bucketTarget[b];
+          if (d + bucketDistance[b] < matrix[cell]) {
+            matrix[cell] = d + bucketDistance[b];
+          }
+        }
+      }
+      q.reset();
+    }
+  }
+
+  /**
+   * Number of vertices the last query() of the calling thread settled, on both sides.
+   * @return settled vertex count, 0 before the first query
+   */
+  public int lastSettled() {
+    return queries.get().settled;
+  }
+
+  /**
+   * Add the arcs relaxed and heap operations of the last query() of the calling thread to stats.
+   * @param stats counters of the query being answered
+   */
+  public void countLastQuery(QueryStats stats) {
+    Query q = queries.get();
+    stats.addRelaxed(q.relaxed).addHeap(q.forwardHeap).addHeap(q.backwardHeap);
+  }
+
+  /**
+   * Write this hierarchy to a file.
+   * @param file file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void save(File file) throws IOException {
+    try (ObjectOutputStream out = new ObjectOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeObject(this);
+    }
+  }
+
+  /**
+   * Read a hierarchy written by save(File).
+   * @param file file to read
+   * @return the stored hierarchy
+   * @throws IOException if the file cannot be read or does not hold a hierarchy
+   */
+  public static ContractionHierarchy load(File file) throws IOException {
+    try (ObjectInputStream in = new ObjectInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
+      return (ContractionHierarchy) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException ex) {
+      throw new IOException("Not a contraction hierarchy: " + file, ex);
+    }
+  }
+
+  // Serialization skips the per-thread query state, start it afresh
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    queries = ThreadLocal.withInitial(Query::new);
+  }
+
+  //private class holding the state of a bidirectional upward search
+  private class Query {
+    double[] forwardDistance = new double[rank.length];
+    double[] backwardDistance = new double[rank.length];
+    // arc into a vertex on the forward search, arc out of it on the backward search
+    int[] forwardArc = new int[rank.length];
+    int[] backwardArc = new int[rank.length];
+    IndexedMinHeap forwardHeap = new IndexedMinHeap(rank.length);
+    IndexedMinHeap backwardHeap = new IndexedMinHeap(rank.length);
+    int[] touched = new int[16];
+    int numTouched = 0;
+    // vertices settled and arcs relaxed by the last run, on both sides
+    int settled = 0;
+    long relaxed = 0;
+
+    Query() {
+      Arrays.fill(forwardDistance, Double.POSITIVE_INFINITY);
+      Arrays.fill(backwardDistance, Double.POSITIVE_INFINITY);
+    }
+
+    int[] run(int start, int end) {
+      settled = 0;
+      relaxed = 0;
+      forwardHeap.resetCounters();
+      backwardHeap.resetCounters();
+      touch(start);
+      forwardDistance[start] = 0;
+      forwardArc[start] = -1;
+      forwardHeap.insertOrDecrease(start, 0);
+      touch(end);
+      backwardDistance[end] = 0;
+      backwardArc[end] = -1;
+      backwardHeap.insertOrDecrease(end, 0);
+
+      double best = Double.POSITIVE_INFINITY;
+      int meeting = -1;
+      //each side runs until its frontier cannot beat the best meeting point
+      while (true) {
+        boolean forward = !forwardHeap.isEmpty() && forwardHeap.minKey() < best;
+        boolean backward = !backwardHeap.isEmpty() && backwardHeap.minKey() < best;
+        if (!forward && !backward) {
+          break;
+        }
+        if (forward && (!backward || forwardHeap.minKey() <= backwardHeap.minKey())) {
+          int u = forwardHeap.poll();
+          settled++;
+          if (forwardDistance[u] + backwardDistance[u] < best) {
+            best = forwardDistance[u] + backwardDistance[u];
+            meeting = u;
+          }
+          relaxed += upOffsets[u + 1] - upOffsets[u];
+          for (int i = upOffsets[u]; i < upOffsets[u + 1]; i++) {
+            int v = upTargets[i];
+            double d = forwardDistance[u] + upWeights[i];
+            touch(v);
+            if (d < forwardDistance[v]) {
+              forwardDistance[v] = d;
+              forwardArc[v] = upArcs[i];
+              forwardHeap.insertOrDecrease(v, d);
+            }
+          }
+        } else {
+          int u = backwardHeap.poll();
+          settled++;
+          if (forwardDistance[u] + backwardDistance[u] < best) {
+            best = forwardDistance[u] + backwardDistance[u];
+            meeting = u;
+          }
+          relaxed += downOffsets[u + 1] - downOffsets[u];
+          for (int i = downOffsets[u]; i < downOffsets[u + 1]; i++) {
+            int v = downSources[i];
+            double d = backwardDistance[u] + downWeights[i];
+            touch(v);
+            if (d < backwardDistance[v]) {
+              backwardDistance[v] = d;
+              backwardArc[v] = downArcs[i];
+              backwardHeap.insertOrDecrease(v, d);
+            }
+          }
+        }
+      }
+
+      int[] path = meeting < 0 ? null : path(meeting);
+      reset();
+      return path;
+    }
+
+    // Upward search from source settling everything it reaches, over upward arcs forward or
+    // downward arcs backward; the reached vertices stay in touched with their distances
+    // in forwardDistance or backwardDistance until reset()
+    void climb(int source, boolean forward) {
+      double[] distance = forward ? forwardDistance : backwardDistance;
+      IndexedMinHeap heap = forward ? forwardHeap : backwardHeap;
+      int[] offsets = forward ? upOffsets : downOffsets;
+      int[] ends = forward ? upTargets : downSources;
+      double[] weights = forward ? upWeights : downWeights;
+      touch(source);
+      distance[source] = 0;
+      heap.insertOrDecrease(source, 0);
+      while (!heap.isEmpty()) {
+        int u = heap.poll();
+        for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+          int v = ends[i];
+          double d = distance[u] + weights[i];
+          touch(v);
+          if (d < distance[v]) {
+            distance[v] = d;
+            heap.insertOrDecrease(v, d);
+          }
+        }
+      }
+    }
+
+    // Unpack the arcs through the meeting vertex into snapshot edges from end back to start
+    int[] path(int meeting) {
+      //arcs in driving order: forward chain reversed, then backward chain
+      int[] arcs = new int[16];
+      int numArcs = 0;
+      for (int v = meeting; forwardArc[v] >= 0; v = graph.source(firstEdge(forwardArc[v]))) {
+        if (numArcs == arcs.length) {
+          arcs = Arrays.copyOf(arcs, numArcs * 2);
+        }
+        arcs[numArcs++] = forwardArc[v];
+      }
+      for (int i = 0, j = numArcs - 1; i < j; i++, j--) {
+        int swap = arcs[i];
+        arcs[i] = arcs[j];
+        arcs[j] = swap;
+      }
+      for (int v = meeting; backwardArc[v] >= 0; v = graph.target(lastEdge(backwardArc[v]))) {
+        if (numArcs == arcs.length) {
+          arcs = Arrays.copyOf(arcs, numArcs * 2);
+        }
+        arcs[numArcs++] = backwardArc[v];
+      }
+      if (numArcs == 0) {
+        return null;
+      }
+
+      //unpack each arc depth first, pushing the second half below the first half
+      int[] stack = new int[16];
+      int[] edges = new int[numArcs];
+      int length = 0;
+      for (int i = numArcs - 1; i >= 0; i--) {
+        int top = 0;
+        stack[top++] = arcs[i];
+        while (top > 0) {
+          int a = stack[--top];
+          if (arcEdge[a] >= 0) {
+            if (length == edges.length) {
+              edges = Arrays.copyOf(edges, length * 2);
+            }
+            edges[length++] = arcEdge[a];
+          } else {
+            if (top + 2 > stack.length) {
+              stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            //walking arcs last to first and halves second to first gives end-to-start order
+            stack[top++] = arcFirst[a];
+            stack[top++] = arcSecond[a];
+          }
+        }
+      }
+      return Arrays.copyOf(edges, length);
+    }
+
+    void touch(int v) {
+      if (forwardDistance[v] == Double.POSITIVE_INFINITY
+          && backwardDistance[v] == Double.POSITIVE_INFINITY) {
+        if (numTouched == touched.length) {
+          touched = Arrays.copyOf(touched, numTouched * 2);
+        }
+        touched[numTouched++] = v;
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < numTouched; i++) {
+        forwardDistance[touched[i]] = Double.POSITIVE_INFINITY;
+        backwardDistance[touched[i]] = Double.POSITIVE_INFINITY;
+      }
+      numTouched = 0;
+      forwardHeap.clear();
+      backwardHeap.clear();
+    }
+  }
+
+  // First snapshot edge an arc stands for
+  private int firstEdge(int arc) {
+    while (arcEdge[arc] < 0) {
+      arc = arcFirst[arc];
+    }
+    return arcEdge[arc];
+  }
+
+  // Last snapshot edge an arc stands for
+  private int lastEdge(int arc) {
+    while (arcEdge[arc] < 0) {
+      arc = arcSecond[arc];
+    }
+    return arcEdge[arc];
+  }
+
+  //private class holding the state needed only while contracting
+  private class Builder {
+    final int n = rank.length;
+    // arcs being built, grown as shortcuts are added
+    int numArcs = 0;
+    int[] from = new int[16];
+    int[] to = new int[16];
+    double[] weight = new double[16];
+    boolean[] alive = new boolean[16];
+    int[] edge = new int[16];
+    int[] first = new int[16];
+    int[] second = new int[16];
+    // arcs leaving and entering each vertex, may hold dead arcs and arcs to contracted vertices
+    int[][] out = new int[n][];
+    int[] outCount = new int[n];
+    int[][] in = new int[n][];
+    int[] inCount = new int[n];
+    boolean[] contracted = new boolean[n];
+    int[] contractedNeighbours = new int[n];
+    int[] neighbours = new int[16];
+    // target[w] == targetStamp marks the out-neighbours the current witness search looks for,
+    // and between searches the neighbours already collected after a contraction
+    int[] target = new int[n];
+    int targetStamp = 0;
+
+    // witness search state, reset only where touched
+    double[] witness = new double[n];
+    int[] witnessTouched = new int[16];
+    int numWitnessTouched = 0;
+    IndexedMinHeap witnessHeap = new IndexedMinHeap(n);
+
+    void build() {
+      Arrays.fill(witness, Double.POSITIVE_INFINITY);
+      for (int v = 0; v < n; v++) {
+        out[v] = new int[Math.max(2, graph.outEnd(v) - graph.outStart(v))];
+        in[v] = new int[Math.max(2, graph.inEnd(v) - graph.inStart(v))];
+      }
+      for (int u = 0; u < n; u++) {
+        for (int e = graph.outStart(u); e < graph.outEnd(u); e++) {
+          addArc(u, graph.target(e), graph.weight(e), e, -1, -1);
+        }
+      }
+
+      IndexedMinHeap order = new IndexedMinHeap(n);
+      for (int v = 0; v < n; v++) {
+        order.insertOrDecrease(v, priority(v));
+      }
+      int nextRank = 0;
+      while (!order.isEmpty()) {
+        int v = order.poll();
+        //priorities only grow as neighbours get contracted, so re-check lazily
+        double p = priority(v);
+        if (!order.isEmpty() && p > order.minKey()) {
+          order.insertOrDecrease(v, p);
+          continue;
+        }
+        contract(v, false);
+        //collect each uncontracted neighbour once, two-way roads make most of them both in and out
+        targetStamp++;
+        int numNeighbours = 0;
+        for (int i = 0; i < outCount[v]; i++) {
+          int u = to[out[v][i]];
+          if (live(out[v][i]) && target[u] != targetStamp) {
+            target[u] = targetStamp;
+            neighbours = push(neighbours, numNeighbours++, u);
+          }
+        }
+        for (int i = 0; i < inCount[v]; i++) {
+          int u = from[in[v][i]];
+          if (live(in[v][i]) && target[u] != targetStamp) {
+            target[u] = targetStamp;
+            neighbours = push(neighbours, numNeighbours++, u);
+          }
+        }
+        contracted[v] = true;
+        rank[v] = nextRank++;
+        //drop the arcs to v from the neighbours and bring their priorities up to date
+        for (int i = 0; i < numNeighbours; i++) {
+          int u = neighbours[i];
+          contractedNeighbours[u]++;
+          outCount[u] = compact(out[u], outCount[u]);
+          inCount[u] = compact(in[u], inCount[u]);
+        }
+        for (int i = 0; i < numNeighbours; i++) {
+          order.update(neighbours[i], priority(neighbours[i]));
+        }
+      }
+      finish();
+    }
+
+    // Keep only the live arcs of a list, returning the new count
+    int compact(int[] arcs, int count) {
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        if (live(arcs[i])) {
+          arcs[kept++] = arcs[i];
+        }
+      }
+      return kept;
+    }
+
+    int[] push(int[] list, int size, int value) {
+      if (size == list.length) {
+        list = Arrays.copyOf(list, size * 2);
+      }
+      list[size] = value;
+      return list;
+    }
+
+    // Edge difference plus contracted neighbours, lower is contracted sooner
+    double priority(int v) {
+      int shortcuts = contract(v, true);
+      int removed = 0;
+      for (int i = 0; i < outCount[v]; i++) {
+        if (live(out[v][i])) {
+          removed++;
+        }
+      }
+      for (int i = 0; i < inCount[v]; i++) {
+        if (live(in[v][i])) {
+          removed++;
+        }
+      }
+      return shortcuts - removed + contractedNeighbours[v];
+    }
+
+    boolean live(int arc) {
+      return alive[arc] && !contracted[from[arc]] && !contracted[to[arc]];
+    }
+
+    // Add (or with simulate only count) the shortcuts contracting v needs
+    int contract(int v, boolean simulate) {
+      double maxOut = 0;
+      for (int i = 0; i < outCount[v]; i++) {
+        int a = out[v][i];
+        if (live(a)) {
+          maxOut = Math.max(maxOut, weight[a]);
+        }
+      }
+      int shortcuts = 0;
+      for (int i = 0; i < inCount[v]; i++) {
+        int in1 = in[v][i];
+        if (!live(in1)) {
+          continue;
+        }
+        int u = from[in1];
+        //the witness search can stop once every out-neighbour of v is settled
+        targetStamp++;
+        int targets = 0;
+        for (int j = 0; j < outCount[v]; j++) {
+          int w = to[out[v][j]];
+          if (live(out[v][j]) && w != u && target[w] != targetStamp) {
+            target[w] = targetStamp;
+            targets++;
+          }
+        }
+        witnessSearch(u, v, weight[in1] + maxOut, targets,
+            simulate ? PRIORITY_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+        for (int j = 0; j < outCount[v]; j++) {
+          int out1 = out[v][j];
+          if (!live(out1) || to[out1] == u) {
+            continue;
+          }
+          int w = to[out1];
+          double via = weight[in1] + weight[out1];
+          if (witness[w] > via) {
+            shortcuts++;
+            if (!simulate) {
+              addArc(u, w, via, -1, in1, out1);
+            }
+          }
+        }
+        resetWitness();
+      }
+      return shortcuts;
+    }
+
+    // Dijkstra from source over uncontracted vertices other than skip, up to limit
+    // or until the marked targets or settleLimit vertices are settled
+    void witnessSearch(int source, int skip, double limit, int targets, int settleLimit) {
+      touchWitness(source);
+      witness[source] = 0;
+      witnessHeap.insertOrDecrease(source, 0);
+      int settled = 0;
+      while (!witnessHeap.isEmpty() && settled < settleLimit) {
+        if (witnessHeap.minKey() > limit) {
+          break;
+        }
+        int u = witnessHeap.poll();
+        settled++;
+        if (target[u] == targetStamp && --targets == 0) {
+          break;
+        }
+        for (int i = 0; i < outCount[u]; i++) {
+          int a = out[u][i];
+          int w = to[a];
+          if (w == skip || !live(a)) {
+            continue;
+          }
+          double d = witness[u] + weight[a];
+          if (d < witness[w]) {
+            touchWitness(w);
+            witness[w] = d;
+            witnessHeap.insertOrDecrease(w, d);
+          }
+        }
+      }
+    }
+
+    void touchWitness(int v) {
+      if (witness[v] == Double.POSITIVE_INFINITY) {
+        if (numWitnessTouched == witnessTouched.length) {
+          witnessTouched = Arrays.copyOf(witnessTouched, numWitnessTouched * 2);
+        }
+        witnessTouched[numWitnessTouched++] = v;
+      }
+    }
+
+    void resetWitness() {
+      for (int i = 0; i < numWitnessTouched; i++) {
+        witness[witnessTouched[i]] = Double.POSITIVE_INFINITY;
+      }
+      numWitnessTouched = 0;
+      witnessHeap.clear();
+    }
+
+    // Add an arc, replacing a longer arc between the same vertices if there is one
+    void addArc(int u, int w, double length, int e, int firstArc, int secondArc) {
+      for (int i = 0; i < outCount[u]; i++) {
+        int a = out[u][i];
+        if (alive[a] && to[a] == w) {
+          if (weight[a] <= length) {
+            return;
+          }
+          alive[a] = false;
+        }
+      }
+      if (numArcs == from.length) {
+        int size = numArcs * 2;
+        from = Arrays.copyOf(from, size);
+        to = Arrays.copyOf(to, size);
+        weight = Arrays.copyOf(weight, size);
+        alive = Arrays.copyOf(alive, size);
+        edge = Arrays.copyOf(edge, size);
+        first = Arrays.copyOf(first, size);
+        second = Arrays.copyOf(second, size);
+      }
+      int a = numArcs++;
+      from[a] = u;
+      to[a] = w;
+      weight[a] = length;
+      alive[a] = true;
+      edge[a] = e;
+      first[a] = firstArc;
+      second[a] = secondArc;
+      if (outCount[u] == out[u].length) {
+        out[u] = Arrays.copyOf(out[u], outCount[u] * 2);
+      }
+      out[u][outCount[u]++] = a;
+      if (inCount[w] == in[w].length) {
+        in[w] = Arrays.copyOf(in[w], inCount[w] * 2);
+      }
+      in[w][inCount[w]++] = a;
+    }
+
+    // Split the live arcs into the upward and downward CSR arrays of the hierarchy
+    void finish() {
+      arcEdge = Arrays.copyOf(edge, numArcs);
+      arcFirst = Arrays.copyOf(first, numArcs);
+      arcSecond = Arrays.copyOf(second, numArcs);
+      upOffsets = new int[n + 1];
+      downOffsets = new int[n + 1];
+      int ups = 0;
+      int downs = 0;
+      for (int a = 0; a < numArcs; a++) {
+        if (!alive[a]) {
+          continue;
+        }
+        if (rank[from[a]] < rank[to[a]]) {
+          upOffsets[from[a] + 1]++;
+          ups++;
+        } else {
+          downOffsets[to[a] + 1]++;
+          downs++;
+        }
+      }
+      for (int v = 0; v < n; v++) {
+        upOffsets[v + 1] += upOffsets[v];
+        downOffsets[v + 1] += downOffsets[v];
+      }
+      upTargets = new int[ups];
+      upWeights = new double[ups];
+      upArcs = new int[ups];
+      downSources = new int[downs];
+      downWeights = new double[downs];
+      downArcs = new int[downs];
+      int[] nextUp = Arrays.copyOf(upOffsets, n);
+      int[] nextDown = Arrays.copyOf(downOffsets, n);
+      for (int a = 0; a < numArcs; a++) {
+        if (!alive[a]) {
+          continue;
+        }
+        if (rank[from[a]] < rank[to[a]]) {
+          int i = nextUp[from[a]]++;
+          upTargets[i] = to[a];
+          upWeights[i] = weight[a];
+          upArcs[i] = a;
+        } else {
+          int i = nextDown[to[a]]++;
+          downSources[i] = from[a];
+          downWeights[i] = weight[a];
+          downArcs[i] = a;
+        }
+      }
+    }
+  }
+}
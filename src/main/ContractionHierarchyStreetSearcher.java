@@ -0,0 +1,149 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Graph;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Answers queries with a Contraction Hierarchy of the loaded network.
+ * The hierarchy is built on the first query after a network is loaded, or ahead of
+ * time with preprocess(), and can be saved and loaded again so it is only built once.
+ * Changing the network drops the hierarchy, the next query builds it again.
+ */
+public class ContractionHierarchyStreetSearcher extends StreetSearcher {
+
+  private volatile ContractionHierarchy hierarchy;
+
+  /**
+   * Creates a StreetSearcher object.
+   *
+   * @param graph an implementation of Graph ADT.
+   */
+  public ContractionHierarchyStreetSearcher(Graph<String, String> graph) {
+    super(graph);
+  }
+
+  //any change of the network, loaded or made on the graph, drops the hierarchy and with
+  //it one read by loadHierarchy, so the next query builds it again
+  @Override
+  protected void networkChanged() {
+    super.networkChanged();
+    hierarchy = null;
+  }
+
+  @Override
+  protected boolean searchesSnapshot() {
+    return true;
+  }
+
+  /**
+   * Build the hierarchy for the loaded network now instead of on the first query.
+   */
+  public synchronized void preprocess() {
+    hierarchy = new ContractionHierarchy(snapshot());
+    if (VERBOSE) {
+      System.out.printf("Hierarchy Built: %d shortcuts\n", hierarchy.numShortcuts());
+    }
+  }
+
+  /**
+   * Save the hierarchy so a later run can skip preprocessing.
+   *
+   * @param file file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void saveHierarchy(File file) throws IOException {
+    hierarchy().save(file);
+  }
+
+  /**
+   * Answer queries from a hierarchy written by saveHierarchy, no network needs to be loaded.
+   *
+   * @param file file to read
+   * @throws IOException if the file cannot be read or does not hold a hierarchy
+   */
+  public void loadHierarchy(File file) throws IOException {
+    hierarchy = ContractionHierarchy.load(file);
+  }
+
+  // The hierarchy, built by the first thread that needs it
+  private ContractionHierarchy hierarchy() {
+    ContractionHierarchy ch = hierarchy;
+    if (ch == null) {
+      synchronized (this) {
+        if (hierarchy == null) {
+          preprocess();
+        }
+        ch = hierarchy;
+      }
+    }
+    return ch;
+  }
+
+  @Override
+  protected boolean isEndpoint(String name) {
+    ContractionHierarchy ch = hierarchy;
+    if (ch != null) {
+      return ch.graph().id(name) >= 0;
+    }
+    return super.isEndpoint(name);
+  }
+
+  /**
+   * Distances from every origin to every destination by bucket-based many-to-many
+   * search on the hierarchy. The backward searches from the destinations run on the
+   * calling thread, then the rows of the origins are spread over executor. The whole
+   * matrix costs about one upward search per origin and per destination.
+   *
+   * @param origins      start vertex names
+   * @param destinations end vertex names
+   * @param executor     runs the forward searches of the origins
+   * @return row-major matrix, entry i * destinations.size() + j is the distance from
+   *         origin i to destination j, Double.POSITIVE_INFINITY if there is no path
+   * @throws IllegalArgumentException if a name is not an endpoint
+   */
+  @Override
+  public double[] distanceMatrix(List<String> origins, List<String> destinations, Executor executor) {
+    origins.forEach(this::checkValidEndpoint);
+    destinations.forEach(this::checkValidEndpoint);
+    ContractionHierarchy ch = hierarchy();
+    int[] sources = ids(ch.graph(), origins);
+    ContractionHierarchy.Buckets buckets = ch.buckets(ids(ch.graph(), destinations));
+    int columns = destinations.size();
+    double[] matrix = new double[sources.length * columns];
+    runInParallel(sources.length, executor, i -> buckets.distancesFrom(sources[i], matrix, i * columns));
+    return matrix;
+  }
+
+  private int[] ids(CsrGraph<String, String> csr, List<String> names) {
+    int[] ids = new int[names.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = csr.id(names.get(i));
+    }
+    return ids;
+  }
+
+  @Override
+  protected PathResult search(String startName, String endName) {
+    ContractionHierarchy ch = hierarchy();
+
+    CsrGraph<String, String> csr = ch.graph();
+    int start = csr.id(startName);
+    int end = csr.id(endName);
+    int[] path = ch.query(start,end);
+    //add up the roads in driving order, the same way Dijkstra's Algorithm does
+    double totalDist = start == end ? 0 : MAX_DISTANCE;
+    if (path != null) {
+      totalDist = 0;
+      for (int i = path.length - 1; i >= 0; i--) {
+        totalDist += csr.weight(path[i]);
+      }
+    }
+    ch.countLastQuery(queryStats());
+    return result(csr,start,path,totalDist,ch.lastSettled());
+  }
+}
@@ -1,18 +1,28 @@
 package hw8.spp;
 
-import static java.util.Objects.hash;
-
-import hw8.graph.Edge;
+import hw8.graph.CsrGraph;
 import hw8.graph.Graph;
-import hw8.graph.Vertex;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.PriorityQueue;
 
 
+/**
+ * Dijkstra's algorithm on the CSR snapshot of the network, stopping once the end
+ * is settled. Each thread keeps arrays indexed by snapshot id for its queries and
+ * resets only the entries a query reached, so a short query costs the same after a
+ * long one.
+ *
+ * <p>setTreeCacheBudget keeps the complete shortest path trees of the most frequent
+ * starts, so that queries from them walk a tree instead of searching.</p>
+ */
 public class DijkstraStreetSearcher extends StreetSearcher {
 
+  //search state of the queries run by each thread, reused from one query to the next
+  private final ThreadLocal<SearchContext> contexts = new ThreadLocal<>();
+  //trees of the hot starts, null unless setTreeCacheBudget turned it on
+  private volatile ShortestPathTreeCache treeCache;
+
   /**
    * Creates a StreetSearcher object.
    *
@@ -23,165 +33,330 @@ public class DijkstraStreetSearcher extends StreetSearcher {
   }
 
   /**
-   * Private Helper Function to check if given start and end points are valid vertices.
-   * @param startName String for name of starting vertex
-   * @param endName String for name of ending vertex
-   * @return true if both the start and end points are valid vertices, false otherwise
+   * Keep the shortest path trees of the most frequent starts within maxBytes, or
+   * stop keeping them. Any trees kept before are dropped.
+   *
+   * @param maxBytes memory the trees may take, about 12 bytes per vertex each, 0 for no cache
+   */
+  public void setTreeCacheBudget(long maxBytes) {
+    treeCache = maxBytes > 0 ? new ShortestPathTreeCache(maxBytes) : null;
+  }
+
+  /**
+   * The cache of shortest path trees, with its hit and miss counts.
+   *
+   * @return the cache, null if it is off
    */
-  private boolean validVertices(String startName, String endName) {
-    Vertex<String> start = vertices.get(startName);
-    Vertex<String> end = vertices.get(endName);
-    if (start == null && end == null) {
-      System.out.println("Invalid Endpoints: " + startName + ", " + endName);
-      return false;
-    } else if (end == null) {
-      System.out.println("Invalid Endpoint: " + endName);
-      return false;
-    } else if (start == null) {
-      System.out.println("Invalid Endpoint: " + startName);
-      return false;
-    }
-    return true;
+  public ShortestPathTreeCache treeCache() {
+    return treeCache;
   }
 
   @Override
-  public void findShortestPath(String startName, String endName) {
-    //call private helper function to check that passed in vertices are valid
-    if (!validVertices(startName,endName)) {
-      return;
+  protected void networkChanged() {
+    super.networkChanged();
+    ShortestPathTreeCache trees = treeCache;
+    if (trees != null) {
+      trees.invalidate();
     }
+  }
+
+  @Override
+  protected PathResult search(String startName, String endName) {
+    ShortestPathTreeCache trees = treeCache;
+    if (trees != null) {
+      PathResult path = treeSearch(trees, startName, endName);
+      if (path != null) {
+        return path;
+      }
+    }
+    CsrGraph<String, String> csr = snapshot();
+    int start = csr.id(startName);
+    int end = csr.id(endName);
+
+    //the heap, distances and roads of this thread, reset even if the search fails
+    SearchContext context = context(csr);
+    try {
+      context.priorityVertex.resetCounters();
 
-    Vertex<String> start = vertices.get(startName);
-    Vertex<String> end = vertices.get(endName);
-    double totalDist = -1;  // totalDist must be update below
+      //only the start vertex is in the heap to begin with, others are added when first reached
+      setDefaultValues(start,context);
 
-    //PriorityQueue of VertexEntries so that root is always unexplored vertex with minimum distance
-    PriorityQueue<VertexEntry> priorityVertex = new PriorityQueue<>(vertices.size(),new ShortestDistance());
-    //HashMap to keep track of all vertices where key is the vertex, and value is the corresponding VertexEntry object
-    HashMap<Vertex<String>,VertexEntry> allVertexEntries = new HashMap<>(vertices.size());
+      boolean found = false;
 
-    //setting default values for all vertices
-    setDefaultValues(start,priorityVertex,allVertexEntries);
+      //while the shortest path has not been found and there are still more paths to be found
+      while (!found && !context.priorityVertex.isEmpty()) {
+        //perform Dijkstra's Algorithm
+        found = parseDistances(context,end);
+      }
 
-    boolean found = false;
+      double totalDist = found ? context.distance[end] : MAX_DISTANCE;
 
-    //while the shortest path has not been found and there are still more paths to be found
-    while (!found && !priorityVertex.isEmpty()) {
-      //perform Dijkstra's Algorithm
-      found = parseDistances(priorityVertex,allVertexEntries,end);
+      // Create the path
+      int[] path = found ? getPath(context,start,end) : null;
+      PathResult result = result(csr, start, path, totalDist, context.settled);
+      queryStats().addRelaxed(context.relaxed).addHeap(context.priorityVertex);
+      return result;
+    } finally {
+      context.clear();
     }
+  }
 
-    totalDist = allVertexEntries.get(end).distance;
-
-    // These method calls will create and print the path for you
-    List<Edge<String>> path = getPath(end, start);
-    if (VERBOSE) {
-      printPath(path, totalDist);
+  // Search state of this thread for snapshot csr, replaced when the snapshot changes
+  private SearchContext context(CsrGraph<String, String> csr) {
+    SearchContext context = contexts.get();
+    if (context == null || context.csr != csr) {
+      context = new SearchContext(csr);
+      contexts.set(context);
     }
+    return context;
+  }
+
+  /**
+   * Shortest paths from one endpoint to every endpoint, found in a single pass.
+   *
+   * @param startName starting vertex name
+   * @return distances and predecessors of all vertices, indexed by snapshot id
+   * @throws IllegalArgumentException if startName is not an endpoint
+   */
+  public ShortestPathTree shortestPathTree(String startName) {
+    return shortestPathTree(startName, null);
   }
 
   /**
-   * Private helper function to aid in Dijkstra's Algorithm by setting all vertices to initial values needed.
-   * @param start the vertex that is origin of shortest path
-   * @param vertexPriority the PriorityQueue which places vertices by in a min-heap by their distances
-   * @param vertexMap the hashMap which associates a vertex with its vertexEntry
+   * Shortest paths from one endpoint to many others, found in a single pass that stops
+   * as soon as every end is settled. Other vertices settled on the way are kept too.
+   *
+   * @param startName starting vertex name
+   * @param endNames  ending vertex names, null for every endpoint
+   * @return distances and predecessors of the settled vertices, indexed by snapshot id
+   * @throws IllegalArgumentException if startName or one of endNames is not an endpoint
    */
-  private void setDefaultValues(Vertex<String> start, PriorityQueue<VertexEntry> vertexPriority,
-                                HashMap<Vertex<String>,VertexEntry> vertexMap) {
-    for (Vertex<String> v : graph.vertices()) {
-      //set label of the vertex to null
-      graph.label(v,null);
-      VertexEntry newEntry;
-      if (v.equals(start)) {
-        //initialized with explored marker set to false
-        newEntry = new VertexEntry(v,0);
-      } else {
-        //initialized with explored marker set to false
-        newEntry = new VertexEntry(v,MAX_DISTANCE);
+  public ShortestPathTree shortestPathTree(String startName, Collection<String> endNames) {
+    checkValidEndpoint(startName);
+    QueryStats stats = startQuery();
+    CsrGraph<String, String> csr = snapshot();
+    ShortestPathTree tree = buildTree(csr, csr.id(startName), endNames, stats);
+    finishQuery(stats, tree.settled());
+    return tree;
+  }
+
+  // Answer from the cached tree of startName, computing the tree first if startName
+  // has become hot and no other thread is already at it. Null if the query is to be
+  // searched for on its own
+  private PathResult treeSearch(ShortestPathTreeCache trees, String startName, String endName) {
+    CsrGraph<String, String> csr = snapshot();
+    ShortestPathTree[] built = new ShortestPathTree[1];
+    ShortestPathTree tree = trees.get(startName, csr, () -> {
+      built[0] = buildTree(csr, csr.id(startName), null, queryStats());
+      return built[0];
+    });
+    if (tree == null) {
+      return null;
+    }
+    //a tree this thread did not build was answered without settling anything
+    return tree == built[0] ? tree.path(csr.id(endName)) : tree.path(csr.id(endName), 0);
+  }
+
+  // Dijkstra pass over the snapshot from start until every end is settled, adding its work to stats
+  private ShortestPathTree buildTree(CsrGraph<String, String> csr, int start, Collection<String> endNames,
+                                     QueryStats stats) {
+    int n = csr.numVertices();
+
+    //mark the ends, the search is done once remaining reaches 0
+    boolean[] target = null;
+    int remaining = n;
+    if (endNames != null) {
+      target = new boolean[n];
+      remaining = 0;
+      for (String endName : endNames) {
+        checkValidEndpoint(endName);
+        int end = csr.id(endName);
+        if (!target[end]) {
+          target[end] = true;
+          remaining++;
+        }
       }
-      //add vertices to PriorityQueue and HashMap
-      vertexPriority.add(newEntry);
-      vertexMap.put(v,newEntry);
+    }
+
+    double[] distance = new double[n];
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    int[] predecessor = new int[n];
+    Arrays.fill(predecessor, -1);
+    IndexedMinHeap heap = new IndexedMinHeap(n);
+    distance[start] = 0;
+    heap.insertOrDecrease(start, 0);
+
+    int settled = 0;
+    long relaxed = 0;
+    while (!heap.isEmpty()) {
+      int u = heap.poll();
+      settled++;
+      if (target == null || target[u]) {
+        remaining--;
+      }
+      if (remaining <= 0) {
+        break;
+      }
+      //weights are not negative, so a settled vertex never gets a shorter distance
+      relaxed += csr.outEnd(u) - csr.outStart(u);
+      for (int e = csr.outStart(u); e < csr.outEnd(u); e++) {
+        int v = csr.target(e);
+        double d = distance[u] + csr.weight(e);
+        if (d < distance[v]) {
+          distance[v] = d;
+          predecessor[v] = e;
+          heap.insertOrDecrease(v, d);
+        }
+      }
+    }
+    stats.addRelaxed(relaxed).addHeap(heap);
+    //vertices still in the heap only have tentative distances
+    while (!heap.isEmpty()) {
+      int v = heap.poll();
+      distance[v] = Double.POSITIVE_INFINITY;
+      predecessor[v] = -1;
+    }
+    return new ShortestPathTree(csr, start, distance, predecessor, settled);
+  }
+
+  @Override
+  protected void distancesFrom(String origin, List<String> destinations, double[] matrix, int offset) {
+    //one pass settles every destination
+    ShortestPathTree tree = shortestPathTree(origin, destinations);
+    for (int j = 0; j < destinations.size(); j++) {
+      matrix[offset + j] = tree.distance(destinations.get(j));
     }
   }
 
+  /**
+   * Private helper function to aid in Dijkstra's Algorithm by setting up the start of the search.
+   * @param start snapshot id of the vertex that is origin of shortest path
+   * @param context the search state of this thread
+   */
+  private void setDefaultValues(int start, SearchContext context) {
+    context.reach(start);
+    context.distance[start] = 0;
+    context.priorityVertex.insertOrDecrease(start,0);
+  }
+
   /**
    * Private helper function which performs Dijkstra's Algorithm by updating distances of unexplored, incident vertices.
-   * @param priorityVertex priorityQueue of unexplored vertices, organized in a min-heap by distance
-   *                       Pre-condition: priorityVertex is not empty
-   * @param allVertexEntries hashMap which associates the vertex with its vertexEntry
-   * @param end Vertex which is destination point of shortest path
+   * @param context the search state of this thread
+   *                Pre-condition: its heap is not empty
+   * @param end snapshot id of the destination of the shortest path
    * @return true if destination vertex was just explored, false otherwise
    */
-  private boolean parseDistances(PriorityQueue<VertexEntry> priorityVertex,
-                              HashMap<Vertex<String>,VertexEntry> allVertexEntries, Vertex<String> end) {
-    //extract unexplored vertex with minimum distance
-    VertexEntry minDistVertex = priorityVertex.poll();
-    //for every unexplored outgoing edge incident to minDistVertex
-    for (Edge<String> road : graph.outgoing(minDistVertex.vertex)) {
-      //extracting the incident VertexEntry that road leads to
-      VertexEntry destination = allVertexEntries.get(graph.to(road));
-      //checking if this road has already been explored
-      if (destination.explored) {
+  private boolean parseDistances(SearchContext context, int end) {
+    CsrGraph<String, String> csr = context.csr;
+    //extract unexplored vertex with minimum distance and set it as explored
+    int u = context.priorityVertex.poll();
+    context.explored[u] = true;
+    context.settled++;
+    //its distance is final, so the roads out of the endpoint of the shortest path are not needed
+    if (u == end) {
+      return true;
+    }
+    //for every unexplored outgoing road of u
+    context.relaxed += csr.outEnd(u) - csr.outStart(u);
+    for (int e = csr.outStart(u); e < csr.outEnd(u); e++) {
+      int v = csr.target(e);
+      //checking if the vertex this road leads to has already been explored
+      if (context.explored[v]) {
         continue;
       }
-      double d = minDistVertex.distance + (double) graph.label(road);
-      if (d < destination.distance) {
-        destination.distance = d;
-        graph.label(destination.vertex, road);
-        //update PriorityQueue to reflect new distances
-        priorityVertex.remove(destination);
-        priorityVertex.add(destination);
+      double d = context.distance[u] + csr.weight(e);
+      context.reach(v);
+      if (d < context.distance[v]) {
+        context.distance[v] = d;
+        context.road[v] = e;
+        //insert into the heap, or decrease its key if it is already there
+        context.priorityVertex.insertOrDecrease(v, d);
       }
     }
-    //set minDistVertex as explored, return true if minDistVertex is the endpoint of the shortest path to be found
-    minDistVertex.explored = true;
-    return minDistVertex.vertex.equals(end);
+    return false;
   }
 
-  //private class which bundles a vertex with its distance (from another vertex)
-  private static class VertexEntry {
-    Vertex<String> vertex;
-    double distance;
-    boolean explored;
-
-    /**
-     * Constructor for new VertexEntry object.
-     * @param v the vertex
-     * @param distance the distance of vertex v from the starting endpoint
-     */
-    VertexEntry(Vertex<String> v, double distance) {
-      this.vertex = v;
-      this.distance = distance;
-      this.explored = false;
+  /**
+   * Private helper function which traces the roads back from end to start.
+   * @param context the search state of this thread, with end explored
+   * @param start snapshot id of the origin of the shortest path
+   * @param end snapshot id of the destination
+   * @return snapshot edge ids from end back to start, or null if start is end
+   */
+  private int[] getPath(SearchContext context, int start, int end) {
+    CsrGraph<String, String> csr = context.csr;
+    int count = 0;
+    for (int v = end; v != start; v = csr.source(context.road[v])) {
+      count++;
     }
-
-    @Override
-    public int hashCode() {
-      return hash(vertex);
+    if (count == 0) {
+      return null;
+    }
+    int[] path = new int[count];
+    int i = 0;
+    for (int v = end; v != start; v = csr.source(context.road[v])) {
+      path[i++] = context.road[v];
     }
+    return path;
+  }
 
-    @Override
-    public boolean equals(Object other) {
-      if (this == other) {
-        return true;
-      }
-      if (other == null || this.getClass() != other.getClass()) {
-        return false;
-      }
+  //private class holding the search state of one thread over one snapshot, indexed by
+  //snapshot vertex id and reset after every query only where the query touched it
+  private static class SearchContext {
+    final CsrGraph<String, String> csr;
+    //indexed min-heap of vertex ids so that root is always unexplored vertex with minimum distance
+    final IndexedMinHeap priorityVertex;
+    //distance of each vertex from the start, MAX_DISTANCE until it is reached
+    final double[] distance;
+    //road into each vertex on the shortest path found so far, -1 for none
+    final int[] road;
+    final boolean[] explored;
+    //vertices reached by the current query, the only ones clear() has to reset
+    int[] touched = new int[16];
+    int numTouched = 0;
+    //number of vertices explored and roads looked at by the current query
+    int settled = 0;
+    long relaxed = 0;
 
-      VertexEntry otherCast = (VertexEntry) other;
-      //VertexEntry is equal to another VertexEntry as long as they are associated with the same vertex
-      return this.vertex.equals(otherCast.vertex);
+    SearchContext(CsrGraph<String, String> csr) {
+      int n = csr.numVertices();
+      this.csr = csr;
+      priorityVertex = new IndexedMinHeap(n);
+      distance = new double[n];
+      Arrays.fill(distance,MAX_DISTANCE);
+      road = new int[n];
+      Arrays.fill(road,-1);
+      explored = new boolean[n];
     }
-  }
 
-  //private class to create a custom comparator for VertexEntry to be used in the PriorityQueue
-  private static class ShortestDistance implements Comparator<VertexEntry> {
+    /**
+     * Remember that v was reached by this query, the first time it is.
+     * @param v snapshot id of the vertex
+     */
+    void reach(int v) {
+      if (distance[v] == MAX_DISTANCE && road[v] == -1) {
+        if (numTouched == touched.length) {
+          touched = Arrays.copyOf(touched,touched.length * 2);
+        }
+        touched[numTouched++] = v;
+      }
+    }
 
-    @Override
-    public int compare(VertexEntry v1, VertexEntry v2) {
-      return Double.compare(v1.distance,v2.distance);
+    /**
+     * Forget the last query so the context is ready for the next one, in time
+     * proportional to the vertices it reached.
+     */
+    void clear() {
+      for (int i = 0; i < numTouched; i++) {
+        int v = touched[i];
+        distance[v] = MAX_DISTANCE;
+        road[v] = -1;
+        explored[v] = false;
+      }
+      numTouched = 0;
+      priorityVertex.clear();
+      settled = 0;
+      relaxed = 0;
     }
   }
 
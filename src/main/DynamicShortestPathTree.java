@@ -0,0 +1,281 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.GraphListener;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shortest paths from one source to every vertex of a SparseGraph, kept up to date
+ * as the graph changes instead of being recomputed.
+ *
+ * <p>The tree listens to the graph and repairs itself after every change, in the
+ * style of Ramalingam and Reps. An edge that gets shorter or is inserted can only
+ * improve the vertices it leads to, so a Dijkstra pass starts from its end and
+ * stops where nothing improves. An edge that gets longer or is removed only matters
+ * if it is on the tree. Then the vertices below it lose their distance, take the best
+ * distance offered by an incoming edge from the rest of the tree, and a Dijkstra
+ * pass among them settles the rest. Either way the work is bounded by the vertices
+ * whose distance changes and their edges, not by the size of the graph.</p>
+ *
+ * <p>Road lengths are the edge weights. Distances and predecessors are kept in arrays
+ * indexed by SparseGraph vertex id. Like SparseGraph itself the tree is not safe to
+ * use from many threads at once. close() stops following the graph.</p>
+ *
+ * <p>Insert edges together with their weight through insert(from, to, e, w). An edge
+ * inserted with weight 0 and weighed afterwards is first taken as a shortcut and
+ * then repaired a second time.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public class DynamicShortestPathTree<V, E> {
+
+  private final SparseGraph<V, E> graph;
+  private final Vertex<V> source;
+  private final Listener listener = new Listener();
+  // distance[id] of each vertex from source, infinite if it cannot be reached
+  private double[] distance;
+  // predecessor[id] is the edge into each vertex on its shortest path, null for none
+  private Object[] predecessor;
+  // vertexOf[id] is the vertex with each id, so the heap can hold ids
+  private Object[] vertexOf;
+  // vertices below a lengthened tree edge, marked while it is repaired
+  private boolean[] affected;
+  private final IndexedMinHeap heap;
+  // vertices settled by the last repair
+  private int lastRepaired;
+
+  /**
+   * Computes the shortest paths from source and starts following changes of graph.
+   *
+   * @param graph  graph to follow, edge weights are road lengths and must not be negative
+   * @param source start vertex of every path
+   * @throws exceptions.PositionException if source is not a vertex of graph
+   */
+  public DynamicShortestPathTree(SparseGraph<V, E> graph, Vertex<V> source) {
+    this.graph = graph;
+    this.source = source;
+    int n = graph.vertexCapacity();
+    this.distance = new double[n];
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    this.predecessor = new Object[n];
+    this.vertexOf = new Object[n];
+    for (Vertex<V> v : graph.vertices()) {
+      vertexOf[graph.id(v)] = v;
+    }
+    this.affected = new boolean[n];
+    this.heap = new IndexedMinHeap(n);
+    int s = graph.id(source);
+    distance[s] = 0;
+    heap.insertOrDecrease(s, 0);
+    lastRepaired = propagate();
+    graph.addListener(listener);
+  }
+
+  /**
+   * Stop following the graph. The tree keeps the paths it had.
+   */
+  public void close() {
+    graph.removeListener(listener);
+  }
+
+  /**
+   * Start vertex of every path in the tree.
+   *
+   * @return the source
+   */
+  public Vertex<V> source() {
+    return source;
+  }
+
+  /**
+   * Length of the shortest path from the source to v.
+   *
+   * @param v a vertex of the graph
+   * @return distance, Double.POSITIVE_INFINITY if v cannot be reached
+   * @throws exceptions.PositionException if v is not a vertex of the graph
+   */
+  public double distance(Vertex<V> v) {
+    return distance[graph.id(v)];
+  }
+
+  /**
+   * Last edge on the shortest path from the source to v.
+   *
+   * @param v a vertex of the graph
+   * @return the edge into v, null for the source or a vertex that cannot be reached
+   * @throws exceptions.PositionException if v is not a vertex of the graph
+   */
+  @SuppressWarnings("unchecked")
+  public Edge<E> predecessor(Vertex<V> v) {
+    return (Edge<E>) predecessor[graph.id(v)];
+  }
+
+  /**
+   * Edges of the shortest path from the source to end.
+   *
+   * @param end a vertex of the graph
+   * @return read-only list of edges in driving order, empty for the source itself,
+   *         null if end cannot be reached
+   * @throws exceptions.PositionException if end is not a vertex of the graph
+   */
+  public List<Edge<E>> path(Vertex<V> end) {
+    if (distance(end) == Double.POSITIVE_INFINITY) {
+      return null;
+    }
+    List<Edge<E>> path = new ArrayList<>();
+    for (Edge<E> e = predecessor(end); e != null; e = predecessor(graph.from(e))) {
+      path.add(e);
+    }
+    Collections.reverse(path);
+    return Collections.unmodifiableList(path);
+  }
+
+  /**
+   * Number of vertices whose distance the last repair, or the first computation,
+   * settled. A measure of how much of the tree a change touched.
+   *
+   * @return settled vertex count
+   */
+  public int lastRepaired() {
+    return lastRepaired;
+  }
+
+  // Grow the arrays to cover every vertex id of the graph
+  private void ensureCapacity() {
+    int n = graph.vertexCapacity();
+    if (n > distance.length) {
+      int oldLength = distance.length;
+      int newLength = Math.max(n, oldLength * 2);
+      distance = Arrays.copyOf(distance, newLength);
+      Arrays.fill(distance, oldLength, newLength, Double.POSITIVE_INFINITY);
+      predecessor = Arrays.copyOf(predecessor, newLength);
+      vertexOf = Arrays.copyOf(vertexOf, newLength);
+      affected = Arrays.copyOf(affected, newLength);
+    }
+  }
+
+  // Offer v the path through edge e, queueing it if that is shorter than what it has
+  private void relax(Edge<E> e, int u, Vertex<V> v) {
+    double d = distance[u] + graph.weight(e);
+    int id = graph.id(v);
+    if (d < distance[id]) {
+      distance[id] = d;
+      predecessor[id] = e;
+      heap.insertOrDecrease(id, d);
+    }
+  }
+
+  // Dijkstra pass from the queued vertices, relaxing the outgoing edges of each vertex
+  // settled. Returns the number settled
+  @SuppressWarnings("unchecked")
+  private int propagate() {
+    int settled = 0;
+    while (!heap.isEmpty()) {
+      int u = heap.poll();
+      settled++;
+      for (Edge<E> e : graph.outgoing((Vertex<V>) vertexOf[u])) {
+        relax(e, u, graph.to(e));
+      }
+    }
+    return settled;
+  }
+
+  //private class receiving the changes of the graph
+  private class Listener implements GraphListener<V, E> {
+    @Override
+    public void vertexInserted(Vertex<V> v) {
+      ensureCapacity();
+      int id = graph.id(v);
+      distance[id] = Double.POSITIVE_INFINITY;
+      predecessor[id] = null;
+      vertexOf[id] = v;
+    }
+
+    @Override
+    public void vertexRemoved(Vertex<V> v, int id) {
+      //it had no edges, so no other vertex depended on it
+      distance[id] = Double.POSITIVE_INFINITY;
+      predecessor[id] = null;
+      vertexOf[id] = null;
+    }
+
+    @Override
+    public void edgeInserted(Edge<E> e) {
+      shortened(e);
+    }
+
+    @Override
+    public void edgeRemoved(Edge<E> e, Vertex<V> from, Vertex<V> to, double weight) {
+      lengthened(e, to);
+    }
+
+    @Override
+    public void weightChanged(Edge<E> e, double oldWeight) {
+      double w = graph.weight(e);
+      if (w < oldWeight) {
+        shortened(e);
+      } else if (w > oldWeight) {
+        lengthened(e, graph.to(e));
+      }
+    }
+  }
+
+  // Edge e got shorter or was inserted: improve what can be reached through it
+  private void shortened(Edge<E> e) {
+    lastRepaired = 0;
+    int u = graph.id(graph.from(e));
+    if (distance[u] == Double.POSITIVE_INFINITY) {
+      return;
+    }
+    relax(e, u, graph.to(e));
+    lastRepaired = propagate();
+  }
+
+  // Edge e into to got longer or was removed: rebuild the subtree below it if it was on the tree
+  private void lengthened(Edge<E> e, Vertex<V> to) {
+    lastRepaired = 0;
+    int t = graph.id(to);
+    if (predecessor[t] != e) {
+      return;
+    }
+    //collect the subtree below e: vertices whose tree path runs through it
+    List<Vertex<V>> subtree = new ArrayList<>();
+    subtree.add(to);
+    affected[t] = true;
+    for (int i = 0; i < subtree.size(); i++) {
+      for (Edge<E> out : graph.outgoing(subtree.get(i))) {
+        Vertex<V> child = graph.to(out);
+        int c = graph.id(child);
+        if (predecessor[c] == out && !affected[c]) {
+          affected[c] = true;
+          subtree.add(child);
+        }
+      }
+    }
+    for (Vertex<V> v : subtree) {
+      int id = graph.id(v);
+      distance[id] = Double.POSITIVE_INFINITY;
+      predecessor[id] = null;
+    }
+    //each affected vertex starts from its best incoming edge from outside the subtree
+    for (Vertex<V> v : subtree) {
+      for (Edge<E> in : graph.incoming(v)) {
+        int u = graph.id(graph.from(in));
+        if (!affected[u] && distance[u] != Double.POSITIVE_INFINITY) {
+          relax(in, u, v);
+        }
+      }
+    }
+    //then settle the subtree among itself, distances outside it cannot improve
+    lastRepaired = propagate();
+    for (Vertex<V> v : subtree) {
+      affected[graph.id(v)] = false;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package hw8.spp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative longs with log-linear buckets.
+ *
+ * <p>Values below 16 get a bucket each, larger values share a bucket with values
+ * less than 1/8 apart, so percentiles are within 12.5% over the whole long range
+ * in a fixed 488 counters. Recording is a few atomic additions and never blocks,
+ * so it can stay on in production.</p>
+ */
+public final class Histogram {
+
+  // values below LINEAR get their own bucket
+  private static final int LINEAR = 16;
+  // each power of two above LINEAR is split into 2^SUB_BITS buckets
+  private static final int SUB_BITS = 3;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int BUCKETS = LINEAR + (63 - 4) * SUB;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final DoubleAdder sum = new DoubleAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record one value, negative values count as 0.
+   *
+   * @param value value to record
+   */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    long seen = max.get();
+    while (value > seen && !max.compareAndSet(seen, value)) {
+      seen = max.get();
+    }
+  }
+
+  /**
+   * Number of values recorded.
+   *
+   * @return value count
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * Mean of the values recorded.
+   *
+   * @return mean, 0 if nothing was recorded
+   */
+  public double mean() {
+    long n = count.sum();
+    return n == 0 ? 0 : sum.sum() / n;
+  }
+
+  /**
+   * Largest value recorded.
+   *
+   * @return maximum, 0 if nothing was recorded
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Value that a fraction p of the recorded values do not exceed, as the upper end of
+   * the bucket holding it.
+   *
+   * @param p fraction between 0 and 1, for example 0.99
+   * @return the percentile, at most max(), 0 if nothing was recorded
+   */
+  public long percentile(double p) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(p * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Forget all values. Values recorded while this runs may be partly kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.set(0);
+  }
+
+  // Bucket of a non-negative value
+  private static int bucket(long value) {
+    if (value < LINEAR) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+    return LINEAR + (exponent - 4) * SUB + sub;
+  }
+
+  // Largest value that falls in bucket i
+  private static long upperBound(int i) {
+    if (i < LINEAR) {
+      return i;
+    }
+    int exponent = 4 + (i - LINEAR) / SUB;
+    long sub = (i - LINEAR) % SUB;
+    long lower = (SUB + sub) << (exponent - SUB_BITS);
+    //the last bucket ends exactly at Long.MAX_VALUE
+    return lower + (1L << (exponent - SUB_BITS)) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return "Histogram{count=" + count() + ", mean=" + mean() + ", p50=" + percentile(0.5)
+        + ", p99=" + percentile(0.99) + ", max=" + max() + "}";
+  }
+}
@@ -0,0 +1,245 @@
+package hw8.spp;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap over dense int ids with double keys.
+ *
+ * <p>Each id remembers its slot in the heap, so decreasing the key of an
+ * id already in the heap is a sift-up instead of the linear scan that
+ * java.util.PriorityQueue.remove(Object) does. Ids can be inserted lazily
+ * in any order; the backing arrays grow as larger ids show up, so the
+ * cost of a search depends only on the part of the graph it explores.</p>
+ */
+public class IndexedMinHeap {
+
+  // arity of the heap, 4 keeps a node's children on one cache line
+  private static final int D = 4;
+  private static final int INITIAL_CAPACITY = 16;
+
+  // heap[i] is the id stored in slot i of the heap
+  private int[] heap;
+  // keys[id] is the key of id, only meaningful while id is in the heap
+  private double[] keys;
+  // slots[id] is the slot of id in the heap, or -1 if id is not in the heap
+  private int[] slots;
+  private int size;
+  // inserts, decrease-keys and polls, and the largest size, since resetCounters
+  private long operations;
+  private int maxSize;
+
+  /**
+   * Creates an empty heap.
+   */
+  public IndexedMinHeap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates an empty heap with room for ids below the given capacity.
+   * @param capacity expected number of distinct ids
+   */
+  public IndexedMinHeap(int capacity) {
+    capacity = Math.max(capacity, 1);
+    this.heap = new int[capacity];
+    this.keys = new double[capacity];
+    this.slots = new int[capacity];
+    Arrays.fill(slots, -1);
+    this.size = 0;
+  }
+
+  /**
+   * Number of ids currently in the heap.
+   * @return heap size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Check whether the heap is empty.
+   * @return true if no ids are in the heap
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Check whether id is currently in the heap.
+   * @param id id to look for
+   * @return true if id is in the heap
+   */
+  public boolean contains(int id) {
+    return id < slots.length && slots[id] >= 0;
+  }
+
+  /**
+   * Key of an id currently in the heap.
+   * @param id id in the heap
+   * @return key of id
+   */
+  public double key(int id) {
+    return keys[id];
+  }
+
+  /**
+   * Key of the minimum id without removing it.
+   * Pre-condition: heap is not empty
+   * @return smallest key in the heap
+   */
+  public double minKey() {
+    return keys[heap[0]];
+  }
+
+  /**
+   * Insert id with the given key, or lower its key if it is already in the heap.
+   * Nothing happens if id is in the heap with a key that is not larger.
+   * @param id non-negative id
+   * @param key new key for id
+   * @return true if the heap changed
+   */
+  public boolean insertOrDecrease(int id, double key) {
+    ensureIdCapacity(id);
+    int slot = slots[id];
+    if (slot < 0) {
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, size * 2);
+      }
+      slot = size++;
+      heap[slot] = id;
+      slots[id] = slot;
+      maxSize = Math.max(maxSize, size);
+    } else if (key >= keys[id]) {
+      return false;
+    }
+    operations++;
+    keys[id] = key;
+    siftUp(slot);
+    return true;
+  }
+
+  /**
+   * Insert id with the given key, or change its key (up or down) if it is already in the heap.
+   * @param id non-negative id
+   * @param key new key for id
+   */
+  public void update(int id, double key) {
+    if (!insertOrDecrease(id, key) && key > keys[id]) {
+      operations++;
+      keys[id] = key;
+      siftDown(slots[id]);
+    }
+  }
+
+  /**
+   * Remove and return the id with the smallest key.
+   * Pre-condition: heap is not empty
+   * @return id with the smallest key
+   */
+  public int poll() {
+    int min = heap[0];
+    operations++;
+    slots[min] = -1;
+    size--;
+    if (size > 0) {
+      int last = heap[size];
+      heap[0] = last;
+      slots[last] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   * Remove all ids from the heap, only touching the ids still inside it.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      slots[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  /**
+   * Number of inserts, key changes and polls since the last resetCounters().
+   * @return heap operation count
+   */
+  public long operations() {
+    return operations;
+  }
+
+  /**
+   * Largest size the heap reached since the last resetCounters().
+   * @return high-water mark
+   */
+  public int maxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Start counting operations and the high-water mark afresh, for example at the start of a query.
+   * clear() keeps the counts so they can be read after a search cleans up.
+   */
+  public void resetCounters() {
+    operations = 0;
+    maxSize = size;
+  }
+
+  private void ensureIdCapacity(int id) {
+    if (id >= slots.length) {
+      int oldLength = slots.length;
+      int newLength = Math.max(id + 1, oldLength * 2);
+      slots = Arrays.copyOf(slots, newLength);
+      Arrays.fill(slots, oldLength, newLength, -1);
+      keys = Arrays.copyOf(keys, newLength);
+    }
+  }
+
+  private void siftUp(int slot) {
+    int id = heap[slot];
+    double key = keys[id];
+    while (slot > 0) {
+      int parent = (slot - 1) / D;
+      int parentId = heap[parent];
+      if (keys[parentId] <= key) {
+        break;
+      }
+      heap[slot] = parentId;
+      slots[parentId] = slot;
+      slot = parent;
+    }
+    heap[slot] = id;
+    slots[id] = slot;
+  }
+
+  private void siftDown(int slot) {
+    int id = heap[slot];
+    double key = keys[id];
+    while (true) {
+      int first = slot * D + 1;
+      if (first >= size) {
+        break;
+      }
+      //find the child with the smallest key
+      int best = first;
+      double bestKey = keys[heap[first]];
+      int last = Math.min(first + D, size);
+      for (int child = first + 1; child < last; child++) {
+        double childKey = keys[heap[child]];
+        if (childKey < bestKey) {
+          best = child;
+          bestKey = childKey;
+        }
+      }
+      if (bestKey >= key) {
+        break;
+      }
+      int bestId = heap[best];
+      heap[slot] = bestId;
+      slots[bestId] = slot;
+      slot = best;
+    }
+    heap[slot] = id;
+    slots[id] = slot;
+  }
+}
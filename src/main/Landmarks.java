@@ -0,0 +1,276 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Landmark distance tables for ALT (A*, Landmarks, Triangle inequality) lower bounds.
+ *
+ * <p>For every landmark L the tables hold d(L, v) and d(v, L) for all vertices v,
+ * stored vertex-major in flat double arrays so the bounds for one vertex sit next
+ * to each other. By the triangle inequality d(v, t) is at least
+ * d(L, t) - d(L, v) and d(v, L) - d(t, L) for every landmark, which gives an
+ * admissible and consistent A* heuristic on any graph. Memory is
+ * 2 * numLandmarks doubles per vertex.</p>
+ */
+public class Landmarks {
+
+  // longest array the JVM reliably allocates
+  private static final int MAX_TABLE_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * How landmarks are picked.
+   */
+  public enum Selection {
+    /** Each new landmark is the vertex farthest from the landmarks picked so far. */
+    FARTHEST,
+    /**
+     * Each new landmark is the leaf of the shortest-path tree from a random root
+     * whose branch the current landmarks bound worst (Goldberg and Werneck).
+     */
+    AVOID
+  }
+
+  private final int numLandmarks;
+  private final int[] landmarks;
+  // fromLandmark[v * numLandmarks + i] is d(landmark i, v), toLandmark[..] is d(v, landmark i)
+  private final double[] fromLandmark;
+  private final double[] toLandmark;
+
+  // Dijkstra state reused for every landmark, parent[v] is the vertex before v in the tree
+  private final double[] distance;
+  private final int[] parent;
+  private final int[] order;
+  private final IndexedMinHeap heap;
+
+  /**
+   * Pick landmarks and compute their distance tables.
+   * @param graph snapshot of the network
+   * @param count number of landmarks, at most the number of vertices
+   * @param selection how landmarks are picked
+   * @param seed seed for the random choices of the selection
+   * @throws IllegalArgumentException if count is negative or the tables would not fit in an array
+   */
+  public Landmarks(CsrGraph<?, ?> graph, int count, Selection selection, long seed) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of landmarks must not be negative: " + count);
+    }
+    int n = graph.numVertices();
+    this.numLandmarks = Math.min(count, n);
+    //checked in long, on large networks n * numLandmarks overflows an int
+    long tableSize = (long) n * numLandmarks;
+    if (tableSize > MAX_TABLE_SIZE) {
+      throw new IllegalArgumentException("Distance tables of " + numLandmarks + " landmarks for "
+          + n + " vertices do not fit in an array, use fewer landmarks");
+    }
+    this.landmarks = new int[numLandmarks];
+    this.fromLandmark = new double[(int) tableSize];
+    this.toLandmark = new double[(int) tableSize];
+    this.distance = new double[n];
+    this.parent = new int[n];
+    this.order = new int[n];
+    this.heap = new IndexedMinHeap(n);
+
+    //source of every edge for the backward searches, only kept while the tables are filled
+    int[] sources = new int[graph.numEdges()];
+    for (int u = 0; u < n; u++) {
+      Arrays.fill(sources, graph.outStart(u), graph.outEnd(u), u);
+    }
+
+    Random random = new Random(seed);
+    for (int i = 0; i < numLandmarks; i++) {
+      int landmark;
+      if (i == 0 || selection == Selection.FARTHEST) {
+        landmark = farthest(graph, i, random);
+      } else {
+        landmark = avoid(graph, i, random);
+      }
+      landmarks[i] = landmark;
+      //fill in the tables for the new landmark
+      dijkstra(graph, landmark, null);
+      for (int v = 0; v < n; v++) {
+        fromLandmark[v * numLandmarks + i] = distance[v];
+      }
+      dijkstra(graph, landmark, sources);
+      for (int v = 0; v < n; v++) {
+        toLandmark[v * numLandmarks + i] = distance[v];
+      }
+    }
+  }
+
+  /**
+   * Number of landmarks.
+   * @return landmark count
+   */
+  public int size() {
+    return numLandmarks;
+  }
+
+  /**
+   * A landmark.
+   * @param i landmark index
+   * @return snapshot id of landmark i
+   */
+  public int landmark(int i) {
+    return landmarks[i];
+  }
+
+  /**
+   * Lower bound on the distance from v to t using the first count landmarks.
+   * Bounds through landmarks that cannot reach or be reached from both vertices are skipped.
+   * @param v snapshot id of the first vertex
+   * @param t snapshot id of the second vertex
+   * @return lower bound on d(v, t), 0 if no landmark gives one
+   */
+  public double lowerBound(int v, int t) {
+    return lowerBound(v, t, numLandmarks);
+  }
+
+  private double lowerBound(int v, int t, int count) {
+    double best = 0;
+    int vi = v * numLandmarks;
+    int ti = t * numLandmarks;
+    for (int i = 0; i < count; i++) {
+      //d(L,t) - d(L,v) <= d(v,t)
+      double lt = fromLandmark[ti + i];
+      double lv = fromLandmark[vi + i];
+      if (lt != Double.POSITIVE_INFINITY && lv != Double.POSITIVE_INFINITY && lt - lv > best) {
+        best = lt - lv;
+      }
+      //d(v,L) - d(t,L) <= d(v,t)
+      double vl = toLandmark[vi + i];
+      double tl = toLandmark[ti + i];
+      if (vl != Double.POSITIVE_INFINITY && tl != Double.POSITIVE_INFINITY && vl - tl > best) {
+        best = vl - tl;
+      }
+    }
+    return best;
+  }
+
+  // Vertex farthest from the landmarks picked so far, or from a random vertex for the first one
+  private int farthest(CsrGraph<?, ?> graph, int picked, Random random) {
+    int n = graph.numVertices();
+    double[] closest = new double[n];
+    if (picked == 0) {
+      dijkstra(graph, random.nextInt(n), null);
+      System.arraycopy(distance, 0, closest, 0, n);
+    } else {
+      Arrays.fill(closest, Double.POSITIVE_INFINITY);
+      for (int v = 0; v < n; v++) {
+        for (int i = 0; i < picked; i++) {
+          closest[v] = Math.min(closest[v], fromLandmark[v * numLandmarks + i]);
+        }
+      }
+    }
+    //prefer the farthest reachable vertex, vertices no landmark reaches come next
+    int best = -1;
+    for (int v = 0; v < n; v++) {
+      if (isLandmark(v, picked)) {
+        continue;
+      }
+      if (best < 0 || better(closest[v], closest[best])) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  private boolean better(double a, double b) {
+    if (a == Double.POSITIVE_INFINITY || b == Double.POSITIVE_INFINITY) {
+      return b == Double.POSITIVE_INFINITY && a != Double.POSITIVE_INFINITY;
+    }
+    return a > b;
+  }
+
+  // Leaf of the shortest-path tree from a random root whose branch is bounded worst
+  private int avoid(CsrGraph<?, ?> graph, int picked, Random random) {
+    int n = graph.numVertices();
+    int root = random.nextInt(n);
+    int settled = dijkstra(graph, root, null);
+
+    //size of a vertex is how much the bounds to it fall short, summed over its subtree,
+    //and 0 if the subtree already holds a landmark
+    double[] size = new double[n];
+    boolean[] hasLandmark = new boolean[n];
+    for (int i = settled - 1; i >= 0; i--) {
+      int v = order[i];
+      size[v] += distance[v] - lowerBound(root, v, picked);
+      if (isLandmark(v, picked)) {
+        hasLandmark[v] = true;
+      }
+      if (hasLandmark[v]) {
+        size[v] = 0;
+      }
+      if (parent[v] >= 0) {
+        int p = parent[v];
+        size[p] += size[v];
+        hasLandmark[p] |= hasLandmark[v];
+      }
+    }
+
+    //walk down from the root, always into the child with the largest size
+    int[] bestChild = new int[n];
+    Arrays.fill(bestChild, -1);
+    for (int i = 1; i < settled; i++) {
+      int v = order[i];
+      int p = parent[v];
+      if (bestChild[p] < 0 || size[v] > size[bestChild[p]]) {
+        bestChild[p] = v;
+      }
+    }
+    int leaf = root;
+    while (bestChild[leaf] >= 0) {
+      leaf = bestChild[leaf];
+    }
+    if (isLandmark(leaf, picked)) {
+      //every branch already has a landmark, fall back to the farthest vertex
+      return farthest(graph, picked, random);
+    }
+    return leaf;
+  }
+
+  private boolean isLandmark(int v, int picked) {
+    for (int i = 0; i < picked; i++) {
+      if (landmarks[i] == v) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Dijkstra from source over outgoing edges, or over incoming edges if the sources of the
+  // edges are given, filling distance, parent and the settle order; returns the number of
+  // settled vertices
+  private int dijkstra(CsrGraph<?, ?> graph, int source, int[] sources) {
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, -1);
+    distance[source] = 0;
+    heap.insertOrDecrease(source, 0);
+    int settled = 0;
+    while (!heap.isEmpty()) {
+      int u = heap.poll();
+      order[settled++] = u;
+      if (sources == null) {
+        for (int e = graph.outStart(u); e < graph.outEnd(u); e++) {
+          relax(u, graph.target(e), graph.weight(e));
+        }
+      } else {
+        for (int i = graph.inStart(u); i < graph.inEnd(u); i++) {
+          int e = graph.inEdge(i);
+          relax(u, sources[e], graph.weight(e));
+        }
+      }
+    }
+    return settled;
+  }
+
+  private void relax(int u, int v, double w) {
+    double d = distance[u] + w;
+    if (d < distance[v]) {
+      distance[v] = d;
+      parent[v] = u;
+      heap.insertOrDecrease(v, d);
+    }
+  }
+}
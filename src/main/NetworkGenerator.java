@@ -0,0 +1,329 @@
+package hw8.spp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic road networks in the format loadNetwork reads, one road per line:
+ * {@code <end1> <end2> <road-distance> <road-name>}.
+ *
+ * <p>Endpoints are named by "longitude,latitude" around Baltimore and lengths are in
+ * feet, a little longer than the straight line between the endpoints, so the networks
+ * work with every searcher including A*. The same shape, road count and seed always
+ * give the same file. Scale-free networks always have the number of roads asked for,
+ * grid and geometric networks have it from a few dozen roads up. Smaller ones can run
+ * out of intersections or points within reach first and come out with fewer roads.</p>
+ *
+ * <p>Roads are streamed to the consumer as they are made. Grid and geometric networks
+ * derive every coordinate from a hash of the seed and the vertex, so they need no
+ * memory per vertex and scale to 10^8 roads and beyond; scale-free networks keep
+ * two ints per road for preferential attachment.</p>
+ *
+ * <p>Usage: {@code java hw8.spp.NetworkGenerator <grid|geometric|scale_free> <roads> <seed> <file>}</p>
+ */
+public final class NetworkGenerator {
+
+  /**
+   * Topology of a generated network.
+   */
+  public enum Shape {
+    /**
+     * Jittered street grid with about one block in ten missing and a few diagonals,
+     * about 2 roads per intersection.
+     */
+    GRID,
+    /**
+     * Random points, each joined to the points within a fixed radius: about 2 pi
+     * neighbours, so about 3 roads per point.
+     */
+    GEOMETRIC,
+    /** Preferential attachment (Barabasi-Albert), each new endpoint joins 2 existing ones. */
+    SCALE_FREE
+  }
+
+  // feet per degree of latitude, and of longitude at Baltimore's latitude
+  private static final double FEET_PER_DEGREE = 364000;
+  private static final double FEET_PER_DEGREE_LON = FEET_PER_DEGREE * Math.cos(Math.toRadians(39.3));
+  private static final double WEST = -76.7;
+  private static final double SOUTH = 39.25;
+  // spacing of grid intersections in degrees
+  private static final double BLOCK = 0.0005;
+  // geometric networks put this many points in each cell one radius wide
+  private static final int POINTS_PER_CELL = 2;
+  // roads each new endpoint of a scale-free network adds
+  private static final int ATTACHMENTS = 2;
+
+  private NetworkGenerator() {
+  }
+
+  /**
+   * Generate a network road by road.
+   *
+   * @param shape    topology of the network
+   * @param roads    number of roads to generate, at most, see the class comment
+   * @param seed     seed for all random choices
+   * @param consumer receives each road, lengths are rounded to 2 decimals like the file
+   */
+  public static void generate(Shape shape, long roads, long seed, NetworkReader.RoadConsumer consumer) {
+    if (roads < 0) {
+      throw new IllegalArgumentException("Negative road count: " + roads);
+    }
+    switch (shape) {
+      case GRID:
+        grid(roads, seed, consumer);
+        break;
+      case GEOMETRIC:
+        geometric(roads, seed, consumer);
+        break;
+      default:
+        scaleFree(roads, seed, consumer);
+        break;
+    }
+  }
+
+  /**
+   * Generate a network into a file.
+   *
+   * @param shape topology of the network
+   * @param roads number of roads to generate, at most, see the class comment
+   * @param seed  seed for all random choices
+   * @param file  file to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Shape shape, long roads, long seed, File file) throws IOException {
+    try (Writer out = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+      StringBuilder line = new StringBuilder(64);
+      generate(shape, roads, seed, (from, to, distance, road) -> {
+        line.setLength(0);
+        line.append(from).append(' ').append(to).append(' ');
+        appendFixed(line, distance, 2);
+        line.append(' ').append(road).append('\n');
+        try {
+          out.append(line);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Command line entry point.
+   *
+   * @param args shape, number of roads, seed and output file
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 4) {
+      System.out.println("Usage: java hw8.spp.NetworkGenerator <grid|geometric|scale_free> <roads> <seed> <file>");
+      return;
+    }
+    Shape shape = Shape.valueOf(args[0].toUpperCase(Locale.ROOT));
+    long roads = Long.parseLong(args[1]);
+    long seed = Long.parseLong(args[2]);
+    write(shape, roads, seed, new File(args[3]));
+  }
+
+  // side x side intersections joined to their east and north neighbours, sometimes north-east
+  private static void grid(long roads, long seed, NetworkReader.RoadConsumer consumer) {
+    //about 1.9 roads per intersection, the grid is sized for a few more and cut off at roads
+    long side = Math.max(2, (long) Math.ceil(Math.sqrt(roads / 1.7)));
+    long emitted = 0;
+    for (long i = 0; i < side && emitted < roads; i++) {
+      for (long j = 0; j < side && emitted < roads; j++) {
+        long v = i * side + j;
+        String name = gridName(i, j, seed);
+        if (i + 1 < side && unit(seed, v, 1) >= 0.1) {
+          emit(consumer, seed, v, 0, i, j, name, i + 1, j, gridName(i + 1, j, seed), "Street" + j);
+          emitted++;
+        }
+        if (j + 1 < side && emitted < roads && unit(seed, v, 2) >= 0.1) {
+          emit(consumer, seed, v, 1, i, j, name, i, j + 1, gridName(i, j + 1, seed), "Avenue" + i);
+          emitted++;
+        }
+        if (i + 1 < side && j + 1 < side && emitted < roads && unit(seed, v, 3) < 0.1) {
+          emit(consumer, seed, v, 2, i, j, name, i + 1, j + 1, gridName(i + 1, j + 1, seed),
+              "Diagonal" + (i - j));
+          emitted++;
+        }
+      }
+    }
+  }
+
+  private static String gridName(long i, long j, long seed) {
+    long v = (i << 32) ^ j;
+    return name(WEST + (i + unit(seed, v, 4) * 0.6) * BLOCK, SOUTH + (j + unit(seed, v, 5) * 0.6) * BLOCK);
+  }
+
+  // Road between grid intersections (i, j) and (p, q)
+  private static void emit(NetworkReader.RoadConsumer consumer, long seed, long v, int salt,
+                           long i, long j, String from, long p, long q, String to, String road) {
+    double dx = (p - i) * BLOCK * FEET_PER_DEGREE_LON;
+    double dy = (q - j) * BLOCK * FEET_PER_DEGREE;
+    double stretch = 1 + unit(seed, v, 6 + salt) * 0.5;
+    consumer.road(from, to, round(Math.sqrt(dx * dx + dy * dy) * stretch), road);
+  }
+
+  // POINTS_PER_CELL random points in each cell one radius wide, joined to the points within
+  // the radius, which can only be in the 3x3 cells around
+  private static void geometric(long roads, long seed, NetworkReader.RoadConsumer consumer) {
+    //about pi * POINTS_PER_CELL neighbours, so half that many roads, per point away from the
+    //border, the square is sized for a few more and cut off at roads
+    double roadsPerCell = POINTS_PER_CELL * Math.PI * POINTS_PER_CELL / 2;
+    long cells = Math.max(2, (long) Math.ceil(Math.sqrt(roads / (0.75 * roadsPerCell))));
+    double width = BLOCK * 1.5;
+    double radius2 = width * width;
+    long emitted = 0;
+    for (long cx = 0; cx < cells && emitted < roads; cx++) {
+      for (long cy = 0; cy < cells && emitted < roads; cy++) {
+        for (int k = 0; k < POINTS_PER_CELL && emitted < roads; k++) {
+          long v = (cx * cells + cy) * POINTS_PER_CELL + k;
+          double x = pointX(seed, v, cx, width);
+          double y = pointY(seed, v, cy, width);
+          String from = name(x, y);
+          //each pair once, from the point with the smaller id
+          for (long nx = cx; nx <= Math.min(cells - 1, cx + 1) && emitted < roads; nx++) {
+            for (long ny = Math.max(0, cy - 1); ny <= Math.min(cells - 1, cy + 1) && emitted < roads; ny++) {
+              for (int l = 0; l < POINTS_PER_CELL && emitted < roads; l++) {
+                long w = (nx * cells + ny) * POINTS_PER_CELL + l;
+                if (w <= v) {
+                  continue;
+                }
+                double px = pointX(seed, w, nx, width);
+                double py = pointY(seed, w, ny, width);
+                double dx = x - px;
+                double dy = y - py;
+                if (dx * dx + dy * dy <= radius2) {
+                  consumer.road(from, name(px, py), length(x, y, px, py, unit(seed, v ^ (w << 20), 7)),
+                      "Road" + v);
+                  emitted++;
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static double pointX(long seed, long v, long cx, double width) {
+    return WEST + (cx + unit(seed, v, 8)) * width;
+  }
+
+  private static double pointY(long seed, long v, long cy, double width) {
+    return SOUTH + (cy + unit(seed, v, 9)) * width;
+  }
+
+  // A small clique, then every new endpoint joins ATTACHMENTS distinct endpoints picked
+  // with probability proportional to their degree
+  private static void scaleFree(long roads, long seed, NetworkReader.RoadConsumer consumer) {
+    if (roads * 2 > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many roads for a scale-free network: " + roads);
+    }
+    int total = (int) roads;
+    long n = roads / ATTACHMENTS + ATTACHMENTS + 1;
+    double width = Math.sqrt(n) * BLOCK;
+    Random random = new Random(seed);
+    //both endpoints of every road so far, an endpoint appears once per road it is on
+    int[] ends = new int[2 * total];
+    int numEnds = 0;
+    int emitted = 0;
+    for (int v = 0; v <= ATTACHMENTS && emitted < total; v++) {
+      for (int w = 0; w < v && emitted < total; w++) {
+        scaleFreeRoad(consumer, seed, width, w, v);
+        ends[numEnds++] = w;
+        ends[numEnds++] = v;
+        emitted++;
+      }
+    }
+    int[] picked = new int[ATTACHMENTS];
+    for (int v = ATTACHMENTS + 1; emitted < total; v++) {
+      int count = 0;
+      while (count < ATTACHMENTS && emitted < total) {
+        int w = ends[random.nextInt(numEnds)];
+        boolean repeat = false;
+        for (int i = 0; i < count; i++) {
+          repeat |= picked[i] == w;
+        }
+        if (repeat) {
+          continue;
+        }
+        picked[count++] = w;
+        scaleFreeRoad(consumer, seed, width, w, v);
+        emitted++;
+      }
+      for (int i = 0; i < count; i++) {
+        ends[numEnds++] = picked[i];
+        ends[numEnds++] = v;
+      }
+    }
+  }
+
+  private static void scaleFreeRoad(NetworkReader.RoadConsumer consumer, long seed, double width,
+                                    int from, int to) {
+    double x1 = WEST + unit(seed, from, 10) * width;
+    double y1 = SOUTH + unit(seed, from, 11) * width;
+    double x2 = WEST + unit(seed, to, 10) * width;
+    double y2 = SOUTH + unit(seed, to, 11) * width;
+    consumer.road(name(x1, y1), name(x2, y2), length(x1, y1, x2, y2, unit(seed, ((long) from << 32) ^ to, 12)),
+        "Route" + from);
+  }
+
+  // Road length in feet, stretched by up to 30% over the straight line
+  private static double length(double x1, double y1, double x2, double y2, double stretch) {
+    double dx = (x1 - x2) * FEET_PER_DEGREE_LON;
+    double dy = (y1 - y2) * FEET_PER_DEGREE;
+    return round(Math.sqrt(dx * dx + dy * dy) * (1 + stretch * 0.3));
+  }
+
+  private static double round(double length) {
+    return Math.round(length * 100) / 100.0;
+  }
+
+  // Uniform number in [0, 1) that depends only on seed, v and salt (SplitMix64 finalizer)
+  private static double unit(long seed, long v, int salt) {
+    long z = seed * 0x9E3779B97F4A7C15L + v * 0xBF58476D1CE4E5B9L + salt * 0x94D049BB133111EBL;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    z = z ^ (z >>> 31);
+    return (z >>> 11) * 0x1.0p-53;
+  }
+
+  // Endpoint name with 6 decimals, without the cost of String.format
+  private static String name(double x, double y) {
+    StringBuilder name = new StringBuilder(24);
+    appendFixed(name, x, 6);
+    name.append(',');
+    appendFixed(name, y, 6);
+    return name.toString();
+  }
+
+  // Append value with a fixed number of decimals, rounded half up like %.nf
+  private static void appendFixed(StringBuilder out, double value, int decimals) {
+    long scale = 1;
+    for (int i = 0; i < decimals; i++) {
+      scale *= 10;
+    }
+    long scaled = Math.round(Math.abs(value) * scale);
+    if (value < 0 && scaled != 0) {
+      out.append('-');
+    }
+    out.append(scaled / scale).append('.');
+    String fraction = Long.toString(scaled % scale);
+    for (int i = fraction.length(); i < decimals; i++) {
+      out.append('0');
+    }
+    out.append(fraction);
+  }
+}
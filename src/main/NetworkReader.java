@@ -0,0 +1,246 @@
+package hw8.spp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads road networks in the text format loadNetwork expects, one road per line:
+ * {@code <end1> <end2> <road-distance> <road-name>}, separated by spaces or tabs.
+ * Lines may end in CRLF, blank lines are skipped.
+ *
+ * <p>The file is memory-mapped and tokenized in place. Distances are parsed
+ * straight from the bytes and names are interned through a table that matches
+ * byte ranges against Strings already seen, so each distinct endpoint or road
+ * name becomes one String and no other Strings are created per line.</p>
+ */
+public class NetworkReader {
+
+  /**
+   * Receives the roads of a network as they are read.
+   */
+  public interface RoadConsumer {
+    /**
+     * Called once for every line of the file.
+     * @param from name of the first endpoint
+     * @param to name of the second endpoint
+     * @param distance length of the road
+     * @param road name of the road
+     */
+    void road(String from, String to, double distance, String road);
+  }
+
+  // files are mapped in windows of this many bytes, a line never spans two windows
+  private static final int WINDOW = 1 << 30;
+  // powers of ten that are exact doubles, used for exactly rounded decimal parsing
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  // open addressing table of interned ASCII names, grown at half load
+  private String[] names = new String[1 << 12];
+  private int[] hashes = new int[1 << 12];
+  private int numNames = 0;
+  // names with non-ASCII bytes are decoded and interned here instead
+  private final Map<String, String> decodedNames = new HashMap<>();
+
+  // token bounds within the current window, filled by parseLine
+  private final int[] starts = new int[4];
+  private final int[] ends = new int[4];
+
+  /**
+   * Read every road in a network file.
+   *
+   * @param data network file
+   * @param consumer receives each road
+   * @throws FileNotFoundException if data cannot be opened
+   */
+  public void read(File data, RoadConsumer consumer) throws FileNotFoundException {
+    try (FileInputStream stream = new FileInputStream(data);
+         FileChannel channel = stream.getChannel()) {
+      long size = channel.size();
+      long position = 0;
+      int line = 0;
+      while (position < size) {
+        int length = (int) Math.min(WINDOW, size - position);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        boolean last = position + length == size;
+        int i = 0;
+        while (i < length) {
+          //find the end of the line, a partial line at the end of a window waits for the next one
+          int end = i;
+          while (end < length && buffer.get(end) != '\n') {
+            end++;
+          }
+          if (end == length && !last) {
+            if (i == 0) {
+              throw new IllegalArgumentException("Line " + (line + 1) + " is too long");
+            }
+            break;
+          }
+          line++;
+          parseLine(buffer, i, end, line, consumer);
+          i = end + 1;
+        }
+        position += Math.min(i, length);
+      }
+    } catch (FileNotFoundException ex) {
+      throw ex;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  // Split one line into its four tokens and hand the road to consumer, blank lines are skipped
+  private void parseLine(MappedByteBuffer buffer, int start, int end, int line, RoadConsumer consumer) {
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    int count = 0;
+    int i = start;
+    while (i < end && count < 4) {
+      while (i < end && separator(buffer.get(i))) {
+        i++;
+      }
+      if (i == end) {
+        break;
+      }
+      starts[count] = i;
+      while (i < end && !separator(buffer.get(i))) {
+        i++;
+      }
+      ends[count++] = i;
+    }
+    if (count == 0) {
+      return;
+    }
+    if (count < 4) {
+      throw new IllegalArgumentException("Line " + line + " does not have 4 fields");
+    }
+    String from = intern(buffer, starts[0], ends[0]);
+    String to = intern(buffer, starts[1], ends[1]);
+    double distance = parseDouble(buffer, starts[2], ends[2]);
+    String road = intern(buffer, starts[3], ends[3]);
+    consumer.road(from, to, distance, road);
+  }
+
+  // Fields are separated by runs of spaces or tabs
+  private static boolean separator(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  // Parse a decimal number, exactly rounded like Double.parseDouble
+  private double parseDouble(MappedByteBuffer buffer, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    boolean anyDigit = false;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean point = false;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        anyDigit = true;
+        if (mantissa != 0) {
+          digits++;
+        }
+        if (point) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    //mantissa and power of ten both exact means one division rounds exactly
+    if (i == end && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+      double value = mantissa / POWERS_OF_TEN[fractionDigits];
+      return negative ? -value : value;
+    }
+    //exponents, long mantissas and malformed numbers go the slow way
+    return Double.parseDouble(decode(buffer, start, end));
+  }
+
+  // One String per distinct name, found without creating a String for names already seen
+  private String intern(MappedByteBuffer buffer, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b < 0) {
+        //non-ASCII, bytes and chars do not line up
+        String decoded = decode(buffer, start, end);
+        String interned = decodedNames.putIfAbsent(decoded, decoded);
+        return interned == null ? decoded : interned;
+      }
+      hash = 31 * hash + b;
+    }
+    //hash is String.hashCode of the name, spread before picking a slot
+    int mask = names.length - 1;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (names[slot] != null) {
+      if (hashes[slot] == hash && matches(names[slot], buffer, start, end)) {
+        return names[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    String name = decode(buffer, start, end);
+    names[slot] = name;
+    hashes[slot] = hash;
+    if (++numNames * 2 > names.length) {
+      grow();
+    }
+    return name;
+  }
+
+  private boolean matches(String name, MappedByteBuffer buffer, int start, int end) {
+    if (name.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (name.charAt(i - start) != buffer.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void grow() {
+    String[] oldNames = names;
+    int[] oldHashes = hashes;
+    names = new String[oldNames.length * 2];
+    hashes = new int[oldNames.length * 2];
+    int mask = names.length - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != null) {
+        int slot = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+        while (names[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        names[slot] = oldNames[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+
+  private String decode(MappedByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = start; i < end; i++) {
+      bytes[i - start] = buffer.get(i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,79 @@
+package hw8.spp;
+
+import java.util.Objects;
+
+/**
+ * Immutable pair of values, used for origin and destination of a query.
+ *
+ * @param <A> type of the first value.
+ * @param <B> type of the second value.
+ */
+public final class Pair<A, B> {
+
+  private final A first;
+  private final B second;
+
+  /**
+   * Creates a Pair.
+   *
+   * @param first  first value
+   * @param second second value
+   */
+  public Pair(A first, B second) {
+    this.first = first;
+    this.second = second;
+  }
+
+  /**
+   * Creates a Pair.
+   *
+   * @param first  first value
+   * @param second second value
+   * @param <A>    type of the first value
+   * @param <B>    type of the second value
+   * @return the pair (first, second)
+   */
+  public static <A, B> Pair<A, B> of(A first, B second) {
+    return new Pair<>(first, second);
+  }
+
+  /**
+   * First value of the pair.
+   *
+   * @return first value
+   */
+  public A first() {
+    return first;
+  }
+
+  /**
+   * Second value of the pair.
+   *
+   * @return second value
+   */
+  public B second() {
+    return second;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Pair)) {
+      return false;
+    }
+    Pair<?, ?> other = (Pair<?, ?>) o;
+    return Objects.equals(first, other.first) && Objects.equals(second, other.second);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hashCode(first) + Objects.hashCode(second);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + first + ", " + second + ")";
+  }
+}
@@ -0,0 +1,232 @@
+package hw8.spp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of query answers keyed by start and end endpoint names, safe to
+ * use from many threads at once.
+ *
+ * <p>Keys are spread over independently locked segments, each evicting its least
+ * recently used entry once it is full, so the cache as a whole is close to LRU
+ * without one lock shared by every query. PathResults are immutable and are handed
+ * out as they are.</p>
+ *
+ * <p>Answers are stamped with the epoch they were computed in. invalidate() starts
+ * a new epoch in O(1), after which older answers read as missing, and put() drops an
+ * answer whose search started before the last invalidate().</p>
+ */
+public final class PathCache {
+
+  // number of segments of a cache large enough to split, a power of two
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments;
+  private final int capacity;
+  private volatile long epoch;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity most answers kept at once
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public PathCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    int numSegments = capacity < SEGMENTS * 4 ? 1 : SEGMENTS;
+    this.segments = new Segment[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      //spread the capacity so the segments add up to exactly capacity
+      int segmentCapacity = capacity / numSegments + (i < capacity % numSegments ? 1 : 0);
+      segments[i] = new Segment(segmentCapacity);
+    }
+  }
+
+  /**
+   * Cached answer for a query, counted as a hit or a miss.
+   *
+   * @param startName starting vertex name
+   * @param endName   ending vertex name
+   * @return the answer, or null if it is not cached or was invalidated
+   */
+  public PathResult get(String startName, String endName) {
+    Pair<String, String> key = Pair.of(startName, endName);
+    long current = epoch;
+    Segment segment = segment(key);
+    Entry entry;
+    synchronized (segment) {
+      entry = segment.get(key);
+      if (entry != null && entry.epoch != current) {
+        segment.remove(key);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.path;
+  }
+
+  /**
+   * Current epoch, to be read before the search whose answer is put().
+   *
+   * @return epoch counter
+   */
+  public long epoch() {
+    return epoch;
+  }
+
+  /**
+   * Cache an answer, evicting the least recently used answer of its segment if it is full.
+   *
+   * @param startName starting vertex name
+   * @param endName   ending vertex name
+   * @param path      the answer
+   * @param epoch     epoch() read before the answer was searched for, a stale answer is dropped
+   */
+  public void put(String startName, String endName, PathResult path, long epoch) {
+    if (epoch != this.epoch) {
+      return;
+    }
+    Pair<String, String> key = Pair.of(startName, endName);
+    Segment segment = segment(key);
+    synchronized (segment) {
+      segment.put(key, new Entry(path, epoch));
+    }
+  }
+
+  /**
+   * Forget every cached answer, in O(1). Called when the network changes.
+   */
+  public synchronized void invalidate() {
+    epoch++;
+  }
+
+  /**
+   * Most answers kept at once.
+   *
+   * @return capacity
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Number of answers held, including invalidated ones not yet dropped.
+   *
+   * @return entry count
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Number of get() calls that found an answer.
+   *
+   * @return hit count
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of get() calls that found nothing.
+   *
+   * @return miss count
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of answers dropped to make room.
+   *
+   * @return eviction count
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Fraction of get() calls that found an answer.
+   *
+   * @return hit rate, 0 before the first get()
+   */
+  public double hitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  private Segment segment(Pair<String, String> key) {
+    //mix the high bits in, String hashes of similar names differ mostly in the low ones
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & (segments.length - 1)];
+  }
+
+  @Override
+  public String toString() {
+    return "PathCache{capacity=" + capacity + ", size=" + size() + ", hits=" + hits() + ", misses=" + misses()
+        + ", evictions=" + evictions() + "}";
+  }
+
+  //private class for one LRU segment, guarded by its own monitor
+  private final class Segment {
+    //access order makes the first entry the least recently used one
+    private final LinkedHashMap<Pair<String, String>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int segmentCapacity;
+
+    Segment(int segmentCapacity) {
+      this.segmentCapacity = segmentCapacity;
+    }
+
+    Entry get(Pair<String, String> key) {
+      return entries.get(key);
+    }
+
+    void remove(Pair<String, String> key) {
+      entries.remove(key);
+    }
+
+    void put(Pair<String, String> key, Entry entry) {
+      entries.put(key, entry);
+      if (entries.size() > segmentCapacity) {
+        Iterator<Pair<String, String>> eldest = entries.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+
+    int size() {
+      return entries.size();
+    }
+  }
+
+  //private class for an answer and the epoch it was computed in
+  private static final class Entry {
+    final PathResult path;
+    final long epoch;
+
+    Entry(PathResult path, long epoch) {
+      this.path = path;
+      this.epoch = epoch;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package hw8.spp;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shortest path found by a StreetSearcher: its total distance, the endpoints
+ * passed and the roads taken, in driving order from the start to the end, and
+ * how many vertices the search settled to find it.
+ * Nothing is printed unless print() is called.
+ */
+public final class PathResult {
+
+  private final double totalDistance;
+  private final String[] vertices;
+  private final String[] roads;
+  private final double[] lengths;
+  private final int settled;
+
+  /**
+   * Creates a PathResult.
+   *
+   * @param totalDistance length of the path, Double.POSITIVE_INFINITY if there is none
+   * @param vertices      endpoint names in driving order, one more than the roads, owned by the result
+   * @param roads         road names in driving order, owned by the result
+   * @param lengths       road lengths in the same order, owned by the result
+   * @param settled       number of vertices the search settled
+   */
+  PathResult(double totalDistance, String[] vertices, String[] roads, double[] lengths, int settled) {
+    this.totalDistance = totalDistance;
+    this.vertices = vertices;
+    this.roads = roads;
+    this.lengths = lengths;
+    this.settled = settled;
+  }
+
+  /**
+   * Result for an end that cannot be reached from the start.
+   *
+   * @param settled number of vertices the search settled
+   * @return a result with no vertices or roads and an infinite distance
+   */
+  static PathResult notFound(int settled) {
+    return new PathResult(Double.POSITIVE_INFINITY, new String[0], new String[0], new double[0], settled);
+  }
+
+  /**
+   * Check whether the end can be reached from the start.
+   *
+   * @return true if a path exists, including the empty trip from an endpoint to itself
+   */
+  public boolean found() {
+    return totalDistance != Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Total length of the path.
+   *
+   * @return sum of the road lengths, Double.POSITIVE_INFINITY if there is no path
+   */
+  public double totalDistance() {
+    return totalDistance;
+  }
+
+  /**
+   * Number of roads on the path.
+   *
+   * @return road count
+   */
+  public int size() {
+    return roads.length;
+  }
+
+  /**
+   * Name of a road on the path.
+   *
+   * @param i position on the path, 0 is the road leaving the start
+   * @return road name
+   */
+  public String road(int i) {
+    return roads[i];
+  }
+
+  /**
+   * Length of a road on the path.
+   *
+   * @param i position on the path, 0 is the road leaving the start
+   * @return road length
+   */
+  public double length(int i) {
+    return lengths[i];
+  }
+
+  /**
+   * Name of an endpoint on the path.
+   *
+   * @param i position on the path, 0 is the start and size() the end
+   * @return endpoint name
+   */
+  public String vertex(int i) {
+    return vertices[i];
+  }
+
+  /**
+   * Names of the endpoints on the path.
+   *
+   * @return read-only list of endpoint names in driving order, empty if there is no path
+   */
+  public List<String> vertices() {
+    return Collections.unmodifiableList(Arrays.asList(vertices));
+  }
+
+  /**
+   * Number of vertices the search settled, a measure of the work it did.
+   *
+   * @return settled vertex count
+   */
+  public int settled() {
+    return settled;
+  }
+
+  /**
+   * Names of the roads on the path.
+   *
+   * @return read-only list of road names in driving order
+   */
+  public List<String> roads() {
+    return Collections.unmodifiableList(Arrays.asList(roads));
+  }
+
+  /**
+   * Print the path the way StreetSearcher reports it: the total distance, then one
+   * line per road. A trip from an endpoint to itself has no roads and prints like no path.
+   *
+   * @param out stream to print to, written once
+   */
+  public void print(PrintStream out) {
+    if (roads.length == 0) {
+      out.println("No path found");
+      return;
+    }
+
+    StringBuilder text = new StringBuilder(32 * (roads.length + 1));
+    Formatter formatter = new Formatter(text, Locale.getDefault(Locale.Category.FORMAT));
+    formatter.format("Total Distance: %.4f\n", totalDistance);
+    for (int i = 0; i < roads.length; i++) {
+      formatter.format("\t%6.2f \t%s\n", lengths[i], roads[i]);
+    }
+    out.print(text);
+  }
+
+  @Override
+  public String toString() {
+    return "PathResult{totalDistance=" + totalDistance + ", vertices=" + Arrays.toString(vertices)
+        + ", roads=" + Arrays.toString(roads) + ", settled=" + settled + "}";
+  }
+}
@@ -0,0 +1,187 @@
+package hw8.spp;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Formatter;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Histograms of the work and wall time of queries, the listener every StreetSearcher
+ * records into unless it is given another one.
+ *
+ * <p>Safe to update from many threads at once. Read it with the histogram getters,
+ * print a text dump with print(), or register it with the platform MBean server to
+ * watch it over JMX.</p>
+ */
+public class QueryMetrics implements QueryStats.Listener, QueryMetricsMXBean {
+
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private final Histogram latency = new Histogram();
+  private final Histogram settled = new Histogram();
+  private final Histogram relaxed = new Histogram();
+  private final Histogram heapOperations = new Histogram();
+  private final Histogram queueHighWater = new Histogram();
+
+  @Override
+  public void queryFinished(QueryStats stats) {
+    latency.record(stats.nanos());
+    settled.record(stats.settled());
+    relaxed.record(stats.relaxed());
+    heapOperations.record(stats.heapOperations());
+    queueHighWater.record(stats.queueHighWater());
+  }
+
+  /**
+   * Wall time of each query.
+   *
+   * @return histogram in nanoseconds
+   */
+  public Histogram latency() {
+    return latency;
+  }
+
+  /**
+   * Vertices settled by each query.
+   *
+   * @return histogram of settled vertex counts
+   */
+  public Histogram settled() {
+    return settled;
+  }
+
+  /**
+   * Edges relaxed by each query.
+   *
+   * @return histogram of relaxed edge counts
+   */
+  public Histogram relaxed() {
+    return relaxed;
+  }
+
+  /**
+   * Heap operations of each query.
+   *
+   * @return histogram of heap operation counts
+   */
+  public Histogram heapOperations() {
+    return heapOperations;
+  }
+
+  /**
+   * Heap high-water mark of each query.
+   *
+   * @return histogram of heap sizes
+   */
+  public Histogram queueHighWater() {
+    return queueHighWater;
+  }
+
+  /**
+   * Make these metrics readable over JMX as hw8.spp:type=QueryMetrics,name=name.
+   *
+   * @param name name telling this searcher apart from others in the same JVM
+   * @return the name it was registered under
+   * @throws JMException if the name is taken or invalid
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = new ObjectName("hw8.spp:type=QueryMetrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  /**
+   * Print a table with the count, mean, percentiles and maximum of every histogram.
+   *
+   * @param out stream to print to, written once
+   */
+  public void print(PrintStream out) {
+    out.print(getSummary());
+  }
+
+  @Override
+  public long getQueries() {
+    return latency.count();
+  }
+
+  @Override
+  public double getLatencyMeanMillis() {
+    return latency.mean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyP50Millis() {
+    return latency.percentile(0.5) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyP99Millis() {
+    return latency.percentile(0.99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyMaxMillis() {
+    return latency.max() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getSettledMean() {
+    return settled.mean();
+  }
+
+  @Override
+  public long getSettledP99() {
+    return settled.percentile(0.99);
+  }
+
+  @Override
+  public double getRelaxedMean() {
+    return relaxed.mean();
+  }
+
+  @Override
+  public double getHeapOperationsMean() {
+    return heapOperations.mean();
+  }
+
+  @Override
+  public long getQueueHighWaterMax() {
+    return queueHighWater.max();
+  }
+
+  @Override
+  public String getSummary() {
+    StringBuilder text = new StringBuilder(512);
+    Formatter formatter = new Formatter(text, Locale.ROOT);
+    formatter.format("%-16s %10s %12s %12s %12s %12s %12s\n",
+        "", "count", "mean", "p50", "p90", "p99", "max");
+    row(formatter, "latency (us)", latency, 1e3);
+    row(formatter, "settled", settled, 1);
+    row(formatter, "relaxed", relaxed, 1);
+    row(formatter, "heap ops", heapOperations, 1);
+    row(formatter, "queue high-water", queueHighWater, 1);
+    return text.toString();
+  }
+
+  private static void row(Formatter formatter, String name, Histogram histogram, double unit) {
+    formatter.format("%-16s %10d %12.1f %12.1f %12.1f %12.1f %12.1f\n", name, histogram.count(),
+        histogram.mean() / unit, histogram.percentile(0.5) / unit, histogram.percentile(0.9) / unit,
+        histogram.percentile(0.99) / unit, histogram.max() / unit);
+  }
+
+  @Override
+  public void reset() {
+    latency.reset();
+    settled.reset();
+    relaxed.reset();
+    heapOperations.reset();
+    queueHighWater.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "QueryMetrics{queries=" + getQueries() + ", latency=" + latency + ", settled=" + settled + "}";
+  }
+}
@@ -0,0 +1,90 @@
+package hw8.spp;
+
+/**
+ * Management interface of QueryMetrics, so jconsole and other JMX clients can read
+ * the query histograms of a running searcher.
+ */
+public interface QueryMetricsMXBean {
+
+  /**
+   * Number of queries recorded.
+   *
+   * @return query count
+   */
+  long getQueries();
+
+  /**
+   * Mean wall time of a query.
+   *
+   * @return milliseconds
+   */
+  double getLatencyMeanMillis();
+
+  /**
+   * Median wall time of a query.
+   *
+   * @return milliseconds
+   */
+  double getLatencyP50Millis();
+
+  /**
+   * 99th percentile of the wall time of a query.
+   *
+   * @return milliseconds
+   */
+  double getLatencyP99Millis();
+
+  /**
+   * Longest wall time of a query.
+   *
+   * @return milliseconds
+   */
+  double getLatencyMaxMillis();
+
+  /**
+   * Mean number of vertices settled per query.
+   *
+   * @return settled vertices
+   */
+  double getSettledMean();
+
+  /**
+   * 99th percentile of the vertices settled per query.
+   *
+   * @return settled vertices
+   */
+  long getSettledP99();
+
+  /**
+   * Mean number of edges relaxed per query.
+   *
+   * @return relaxed edges
+   */
+  double getRelaxedMean();
+
+  /**
+   * Mean number of heap operations per query.
+   *
+   * @return heap operations
+   */
+  double getHeapOperationsMean();
+
+  /**
+   * Largest heap any query needed.
+   *
+   * @return heap high-water mark
+   */
+  long getQueueHighWaterMax();
+
+  /**
+   * All histograms as text, the same as QueryMetrics.print.
+   *
+   * @return summary table
+   */
+  String getSummary();
+
+  /**
+   * Forget every recorded query.
+   */
+  void reset();
+}
@@ -0,0 +1,125 @@
+package hw8.spp;
+
+/**
+ * Work done by one query: vertices settled, edges relaxed, heap operations, the
+ * largest the heap grew and the wall time taken.
+ *
+ * <p>Each thread has one QueryStats per searcher that is reset when a query starts,
+ * so recording costs a few additions and no allocation. Searchers add their counts
+ * before the query returns and the StreetSearcher hands the finished stats to its
+ * {@link Listener}. A listener must copy what it needs, the object is reused by the
+ * next query of the same thread.</p>
+ */
+public final class QueryStats {
+
+  /**
+   * Receives the stats of every finished query. Called on the thread that ran the
+   * query, so it must be safe to call from many threads at once and should be cheap.
+   */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * Called once per query, after it finished.
+     *
+     * @param stats work done by the query, only valid during the call
+     */
+    void queryFinished(QueryStats stats);
+  }
+
+  private int settled;
+  private long relaxed;
+  private long heapOperations;
+  private int queueHighWater;
+  private long startNanos;
+  private long nanos;
+
+  /**
+   * Number of vertices the query settled.
+   *
+   * @return settled vertex count
+   */
+  public int settled() {
+    return settled;
+  }
+
+  /**
+   * Number of edges the query looked at from the vertices it settled.
+   *
+   * @return relaxed edge count
+   */
+  public long relaxed() {
+    return relaxed;
+  }
+
+  /**
+   * Number of inserts, decrease-keys and polls on the heaps of the query.
+   *
+   * @return heap operation count
+   */
+  public long heapOperations() {
+    return heapOperations;
+  }
+
+  /**
+   * Largest number of vertices waiting in the heaps at once, summed over both
+   * heaps of a bidirectional search.
+   *
+   * @return heap high-water mark
+   */
+  public int queueHighWater() {
+    return queueHighWater;
+  }
+
+  /**
+   * Wall time of the query.
+   *
+   * @return elapsed nanoseconds
+   */
+  public long nanos() {
+    return nanos;
+  }
+
+  /**
+   * Add edges relaxed by the running query.
+   *
+   * @param edges number of edges
+   * @return this, to chain calls
+   */
+  public QueryStats addRelaxed(long edges) {
+    relaxed += edges;
+    return this;
+  }
+
+  /**
+   * Add the operations and high-water mark a heap counted since its resetCounters().
+   *
+   * @param heap a heap used by the running query
+   * @return this, to chain calls
+   */
+  public QueryStats addHeap(IndexedMinHeap heap) {
+    heapOperations += heap.operations();
+    queueHighWater += heap.maxSize();
+    return this;
+  }
+
+  // Forget the last query and start the clock
+  void start() {
+    settled = 0;
+    relaxed = 0;
+    heapOperations = 0;
+    queueHighWater = 0;
+    startNanos = System.nanoTime();
+  }
+
+  // Stop the clock
+  void finish(int settledVertices) {
+    nanos = System.nanoTime() - startNanos;
+    settled = settledVertices;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryStats{settled=" + settled + ", relaxed=" + relaxed + ", heapOperations=" + heapOperations
+        + ", queueHighWater=" + queueHighWater + ", nanos=" + nanos + "}";
+  }
+}
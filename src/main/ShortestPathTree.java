@@ -0,0 +1,151 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+
+/**
+ * Shortest paths from one start vertex to many vertices of a network snapshot,
+ * found in a single Dijkstra pass.
+ *
+ * <p>Distances and predecessors are kept in primitive arrays indexed by snapshot
+ * vertex id: distance[v] is the length of the shortest path to v, and
+ * predecessor[v] is the snapshot edge id of the last road on it. Vertices the
+ * search did not settle have an infinite distance and predecessor -1.</p>
+ */
+public final class ShortestPathTree {
+
+  private final CsrGraph<String, String> graph;
+  private final int source;
+  private final double[] distance;
+  private final int[] predecessor;
+  private final int settled;
+
+  /**
+   * Creates a ShortestPathTree.
+   *
+   * @param graph       snapshot the ids refer to
+   * @param source      snapshot id of the start vertex
+   * @param distance    distance of every vertex from source, owned by the tree
+   * @param predecessor last edge on the shortest path to every vertex, owned by the tree
+   * @param settled     number of vertices the search settled
+   */
+  ShortestPathTree(CsrGraph<String, String> graph, int source, double[] distance, int[] predecessor,
+                   int settled) {
+    this.graph = graph;
+    this.source = source;
+    this.distance = distance;
+    this.predecessor = predecessor;
+    this.settled = settled;
+  }
+
+  /**
+   * Snapshot the vertex and edge ids of this tree refer to.
+   *
+   * @return the snapshot
+   */
+  public CsrGraph<String, String> graph() {
+    return graph;
+  }
+
+  /**
+   * Start vertex of every path in the tree.
+   *
+   * @return snapshot id of the start vertex
+   */
+  public int source() {
+    return source;
+  }
+
+  /**
+   * Number of vertices the search settled.
+   *
+   * @return settled vertex count
+   */
+  public int settled() {
+    return settled;
+  }
+
+  /**
+   * Distance from the start to a vertex.
+   *
+   * @param v snapshot id of the vertex
+   * @return shortest path length, Double.POSITIVE_INFINITY if v was not settled
+   */
+  public double distance(int v) {
+    return distance[v];
+  }
+
+  /**
+   * Distance from the start to an endpoint.
+   *
+   * @param name endpoint name
+   * @return shortest path length, Double.POSITIVE_INFINITY if name was not settled or is not an endpoint
+   */
+  public double distance(String name) {
+    int v = graph.id(name);
+    return v < 0 ? Double.POSITIVE_INFINITY : distance[v];
+  }
+
+  /**
+   * Last road on the shortest path to a vertex.
+   *
+   * @param v snapshot id of the vertex
+   * @return snapshot edge id, -1 for the start and for vertices that were not settled
+   */
+  public int predecessor(int v) {
+    return predecessor[v];
+  }
+
+  /**
+   * Distances of all vertices, indexed by snapshot id.
+   * The array is shared with the tree and must not be modified.
+   *
+   * @return distance array
+   */
+  public double[] distances() {
+    return distance;
+  }
+
+  /**
+   * Predecessor edges of all vertices, indexed by snapshot id.
+   * The array is shared with the tree and must not be modified.
+   *
+   * @return predecessor array
+   */
+  public int[] predecessors() {
+    return predecessor;
+  }
+
+  /**
+   * Shortest path from the start to a vertex, traced back through the predecessors.
+   *
+   * @param end snapshot id of the end vertex
+   * @return the path, not found if end was not settled
+   */
+  public PathResult path(int end) {
+    return path(end, settled);
+  }
+
+  // Path to end, reporting settled as the work done to find it
+  PathResult path(int end, int settled) {
+    if (distance[end] == Double.POSITIVE_INFINITY) {
+      return PathResult.notFound(settled);
+    }
+    int size = 0;
+    for (int v = end; v != source; v = graph.source(predecessor[v])) {
+      size++;
+    }
+    String[] names = new String[size + 1];
+    String[] roads = new String[size];
+    double[] lengths = new double[size];
+    int v = end;
+    for (int i = size - 1; i >= 0; i--) {
+      int e = predecessor[v];
+      names[i + 1] = graph.vertex(v);
+      roads[i] = graph.edge(e);
+      lengths[i] = graph.weight(e);
+      v = graph.source(e);
+    }
+    names[0] = graph.vertex(source);
+    return new PathResult(distance[end], names, roads, lengths, settled);
+  }
+}
@@ -0,0 +1,312 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Complete shortest path trees of the start endpoints asked for most often, kept
+ * within a memory budget so that later queries from them are answered by walking
+ * a tree instead of searching.
+ *
+ * <p>Every lookup counts its start. A start asked for at least twice is hot, and its
+ * tree is admitted while the budget has room. Once it is full, a new tree only goes
+ * in by evicting trees of starts asked for less often than its own. Counts are
+ * halved every few thousand lookups, so starts that stop being asked for cool down
+ * and the counts themselves stay bounded.</p>
+ *
+ * <p>A tree costs about 12 bytes per vertex, a double distance and an int
+ * predecessor. Trees refer to the snapshot they were computed on and a tree of an
+ * older snapshot is dropped when it is looked up.</p>
+ *
+ * <p>Safe to use from many threads at once. Lookups and counts go through concurrent
+ * maps and take no lock, only admitting, evicting and aging trees lock the cache.
+ * get(startName, snapshot, build) builds the tree of a hot start once however many
+ * threads ask for it at the same time, the others wait for that build.</p>
+ */
+public final class ShortestPathTreeCache {
+
+  // lookups a start needs before its tree is worth computing
+  private static final int MIN_LOOKUPS = 2;
+  // lookups between two halvings of the counts
+  private static final int AGING_PERIOD = 4096;
+  // array headers and fields of a tree on top of its two arrays
+  private static final long TREE_OVERHEAD = 64;
+
+  private final long maxBytes;
+  private final Map<String, ShortestPathTree> trees = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> lookups = new ConcurrentHashMap<>();
+  // trees being built, so that other threads wait for them instead of building them again
+  private final Map<String, CompletableFuture<ShortestPathTree>> building = new ConcurrentHashMap<>();
+  private final AtomicInteger sinceAging = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  // guarded by this, like every change of trees
+  private long bytes;
+  private long evictions;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxBytes most memory the trees may take together
+   * @throws IllegalArgumentException if maxBytes is not positive
+   */
+  public ShortestPathTreeCache(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Tree cache budget must be positive: " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Memory taken by the tree of a network.
+   *
+   * @param numVertices vertices of the network
+   * @return estimated size of the tree in bytes
+   */
+  public static long treeBytes(int numVertices) {
+    return 12L * numVertices + TREE_OVERHEAD;
+  }
+
+  /**
+   * Cached tree of a start endpoint, counting the lookup towards making it hot.
+   *
+   * @param startName start endpoint name
+   * @param snapshot  current snapshot, a tree computed on another one is dropped
+   * @return the tree, null if it is not cached
+   */
+  public ShortestPathTree get(String startName, CsrGraph<String, String> snapshot) {
+    LongAdder count = lookups.get(startName);
+    if (count == null) {
+      count = lookups.computeIfAbsent(startName, k -> new LongAdder());
+    }
+    count.increment();
+    //exactly one thread sees the period reached and ages the counts
+    if (sinceAging.incrementAndGet() == AGING_PERIOD) {
+      age();
+    }
+    ShortestPathTree tree = trees.get(startName);
+    if (tree != null && tree.graph() != snapshot) {
+      remove(startName, tree);
+      tree = null;
+    }
+    if (tree == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return tree;
+  }
+
+  /**
+   * Cached tree of a start endpoint, counting the lookup, or the tree built by build if
+   * the start is hot and its tree would be kept. Threads asking for the same start while
+   * it is built wait for that tree instead of building their own.
+   *
+   * @param startName start endpoint name
+   * @param snapshot  current snapshot, a tree computed on another one is dropped
+   * @param build     computes the complete tree of startName on snapshot, on the calling thread
+   * @return the tree, null if it is not cached and not worth building
+   */
+  public ShortestPathTree get(String startName, CsrGraph<String, String> snapshot,
+                              Supplier<ShortestPathTree> build) {
+    ShortestPathTree tree = get(startName, snapshot);
+    if (tree != null || !admits(startName, treeBytes(snapshot.numVertices()))) {
+      return tree;
+    }
+    CompletableFuture<ShortestPathTree> mine = new CompletableFuture<>();
+    CompletableFuture<ShortestPathTree> running = building.putIfAbsent(startName, mine);
+    if (running != null) {
+      try {
+        tree = running.join();
+      } catch (CompletionException ex) {
+        //the build failed on its own thread, search without the tree instead
+        return null;
+      }
+      return tree.graph() == snapshot ? tree : null;
+    }
+    try {
+      //the build may have finished between the lookup and claiming it
+      tree = trees.get(startName);
+      if (tree == null || tree.graph() != snapshot) {
+        tree = build.get();
+        put(startName, tree);
+      }
+      mine.complete(tree);
+      return tree;
+    } catch (RuntimeException | Error ex) {
+      mine.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      building.remove(startName, mine);
+    }
+  }
+
+  /**
+   * Check whether the tree of a start would be kept, so it is only computed if so.
+   *
+   * @param startName start endpoint name
+   * @param treeBytes size of its tree
+   * @return true if the start is hot and its tree fits, evicting colder trees if needed
+   */
+  public boolean admits(String startName, long treeBytes) {
+    //cold starts, the most common case, are turned away without the lock
+    long count = count(startName);
+    if (count < MIN_LOOKUPS || treeBytes > maxBytes) {
+      return false;
+    }
+    synchronized (this) {
+      //sum what could be evicted for it, the trees of starts asked for less often
+      long free = maxBytes - bytes;
+      for (Map.Entry<String, ShortestPathTree> e : trees.entrySet()) {
+        if (free >= treeBytes) {
+          break;
+        }
+        if (count(e.getKey()) < count) {
+          free += treeBytes(e.getValue().distances().length);
+        }
+      }
+      return free >= treeBytes;
+    }
+  }
+
+  /**
+   * Cache the tree of a start, evicting the trees of the coldest starts to make room.
+   * The tree is dropped instead if that would evict a start asked for as often as its own.
+   *
+   * @param startName start endpoint name
+   * @param tree      complete shortest path tree from it
+   */
+  public synchronized void put(String startName, ShortestPathTree tree) {
+    long size = treeBytes(tree.distances().length);
+    if (!admits(startName, size)) {
+      return;
+    }
+    ShortestPathTree old = trees.get(startName);
+    if (old != null) {
+      remove(startName, old);
+    }
+    long count = count(startName);
+    while (bytes + size > maxBytes) {
+      //admits() made sure colder trees free enough room
+      String coldest = null;
+      long coldestCount = count;
+      for (String name : trees.keySet()) {
+        long c = count(name);
+        if (c < coldestCount) {
+          coldest = name;
+          coldestCount = c;
+        }
+      }
+      remove(coldest, trees.get(coldest));
+      evictions++;
+    }
+    trees.put(startName, tree);
+    bytes += size;
+  }
+
+  /**
+   * Drop every tree, keeping the counts of how often each start was asked for.
+   * Called when the network changes.
+   */
+  public synchronized void invalidate() {
+    trees.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Most memory the trees may take together.
+   *
+   * @return budget in bytes
+   */
+  public long maxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Memory the cached trees take.
+   *
+   * @return estimated bytes
+   */
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  /**
+   * Number of trees held.
+   *
+   * @return tree count
+   */
+  public int size() {
+    return trees.size();
+  }
+
+  /**
+   * Number of lookups that found a tree.
+   *
+   * @return hit count
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of lookups that found no tree.
+   *
+   * @return miss count
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of trees dropped to make room for hotter ones.
+   *
+   * @return eviction count
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  // How often a start was asked for since the counts were last halved
+  private long count(String startName) {
+    LongAdder count = lookups.get(startName);
+    return count == null ? 0 : count.sum();
+  }
+
+  // Forget the tree of a start if it is still the given one
+  private synchronized void remove(String startName, ShortestPathTree tree) {
+    if (trees.remove(startName, tree)) {
+      bytes -= treeBytes(tree.distances().length);
+    }
+  }
+
+  // Halve every count, dropping starts that fall to 0 unless their tree is cached.
+  // Lookups counted meanwhile are kept, those of a start just dropped are lost
+  private synchronized void age() {
+    sinceAging.set(0);
+    Iterator<Map.Entry<String, LongAdder>> it = lookups.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, LongAdder> e = it.next();
+      LongAdder count = e.getValue();
+      long half = count.sumThenReset() / 2;
+      if (half == 0 && !trees.containsKey(e.getKey())) {
+        it.remove();
+      } else {
+        count.add(half);
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ShortestPathTreeCache{trees=" + trees.size() + ", bytes=" + bytes + ", maxBytes=" + maxBytes
+        + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions + "}";
+  }
+}
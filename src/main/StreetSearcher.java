@@ -1,29 +1,53 @@
 package hw8.spp;
 
 import exceptions.InsertionException;
+import hw8.graph.CsrGraph;
+import hw8.graph.CsrGraphFile;
 import hw8.graph.Edge;
 import hw8.graph.Graph;
+import hw8.graph.GraphListener;
+import hw8.graph.SparseGraph;
 import hw8.graph.Vertex;
+import hw8.graph.WeightedGraph;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 
 /**
  * Search for the shortest path between two endpoints.
+ *
+ * <p>Once a network is loaded, findShortestPath may be called from many threads
+ * at once. Loading a network must not overlap with queries.</p>
+ *
+ * <p>Every query is counted in a QueryStats and handed to the query listener, by
+ * default the histograms returned by metrics().</p>
+ *
+ * <p>setCacheCapacity puts a PathCache in front of findShortestPath and
+ * findShortestPaths. It is emptied when a network is loaded and, for a SparseGraph,
+ * whenever a vertex, edge or weight of the graph changes, which also makes the
+ * snapshot be rebuilt. Cached answers are not
+ * searched again, so they are not counted by the query listener.</p>
  */
 public abstract class StreetSearcher {
 
   /*
    * Notes:
    *  - Vertex data is the coordinates, stored as a String.
-   *  - Vertex label is the Edge into it on the path found.
+   *  - Vertex labels are not used by searches, search state lives in
+   *    per-query objects so concurrent queries can share one graph.
    *  - Edge data is the road name, stored as a String.
-   *  - Edge label is the road length, stored as a Double.
+   *  - Road length is the edge weight if the graph is a WeightedGraph,
+   *    otherwise the edge label, stored as a Double.
    */
 
   public static boolean VERBOSE = true;
@@ -31,6 +55,9 @@ public abstract class StreetSearcher {
   // useful for marking distance to nodes, or use Double.POSITIVE_INFINITY
   protected static final double MAX_DISTANCE = 1e18;
 
+  // batch queries are split into this many tasks per processor to even out their lengths
+  private static final int TASKS_PER_PROCESSOR = 4;
+
   public int numLoaded;
 
   /* We use a HashMap to store all the vertices so we can
@@ -38,6 +65,19 @@ public abstract class StreetSearcher {
    * for a fast duplicates check. */
   protected Map<String, Vertex<String>> vertices;
   protected Graph<String, String> graph;
+  // same object as graph if it stores primitive edge weights, null otherwise
+  protected WeightedGraph<String, String> weightedGraph;
+  // CSR copy of graph for searchers working on int ids, built on first use
+  private volatile CsrGraph<String, String> snapshot;
+  // histograms of every query, and where finished queries are reported
+  private final QueryMetrics metrics = new QueryMetrics();
+  private volatile QueryStats.Listener listener = metrics;
+  // counters of the query running on each thread
+  private final ThreadLocal<QueryStats> stats = ThreadLocal.withInitial(QueryStats::new);
+  // answers to repeated queries, null unless setCacheCapacity turned it on
+  private volatile PathCache cache;
+  // set while a network is loaded, so the graph changes it makes are reported once at the end
+  private boolean loading;
 
 
   /**
@@ -48,57 +88,356 @@ public abstract class StreetSearcher {
   public StreetSearcher(Graph<String, String> graph) {
     vertices = new HashMap<>();
     this.graph = graph;
+    if (graph instanceof WeightedGraph) {
+      this.weightedGraph = (WeightedGraph<String, String>) graph;
+    }
+    //cached answers and the snapshot are out of date once the graph changes
+    if (graph instanceof SparseGraph) {
+      ((SparseGraph<String, String>) graph).addListener(new ChangeListener());
+    }
     this.numLoaded = 0;
   }
 
-  // Get the path by tracing labels back from end to start.
-  protected List<Edge<String>> getPath(Vertex<String> end,
-                                       Vertex<String> start) {
-    if (graph.label(end) != null) {
-      List<Edge<String>> path = new ArrayList<>();
+  /**
+   * Cache the answers of up to capacity distinct queries, or turn caching off.
+   * Any answers cached before are dropped.
+   *
+   * @param capacity most answers kept, 0 for no cache
+   */
+  public void setCacheCapacity(int capacity) {
+    cache = capacity > 0 ? new PathCache(capacity) : null;
+  }
 
-      Vertex<String> cur = end;
-      Edge<String> road;
-      while (cur != start) {
-        road = (Edge<String>) graph.label(cur);  // unchecked cast ok
-        path.add(road);
-        cur = graph.from(road);
-      }
-      return path;
+  /**
+   * The cache in front of findShortestPath, with its hit and miss counts.
+   *
+   * @return the cache, null if caching is off
+   */
+  public PathCache cache() {
+    return cache;
+  }
+
+  // Forget everything derived from the network, called after it changes.
+  // Searchers keeping more of their own override it and call super
+  protected void networkChanged() {
+    snapshot = null;
+    PathCache c = cache;
+    if (c != null) {
+      c.invalidate();
+    }
+  }
+
+  /**
+   * Histograms of the work and wall time of the queries answered so far, filled in
+   * unless setQueryListener replaced them.
+   *
+   * @return the metrics of this searcher
+   */
+  public QueryMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Report finished queries to listener instead of metrics(). To keep the histograms
+   * too, call metrics().queryFinished from the listener.
+   *
+   * @param listener called after every query on the thread that ran it, null to report nothing
+   */
+  public void setQueryListener(QueryStats.Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Counters of the query running on the calling thread. Searchers add the edges they
+   * relaxed and the heaps they used before the query returns.
+   *
+   * @return stats of the current query
+   */
+  protected QueryStats queryStats() {
+    return stats.get();
+  }
+
+  // Reset the counters of this thread and start timing a query
+  protected QueryStats startQuery() {
+    QueryStats current = stats.get();
+    current.start();
+    return current;
+  }
+
+  // Stop timing the query and report it
+  protected void finishQuery(QueryStats current, int settled) {
+    current.finish(settled);
+    QueryStats.Listener l = listener;
+    if (l != null) {
+      l.queryFinished(current);
     }
-    return null;
   }
 
-  // Print the path found.
-  protected void printPath(List<Edge<String>> path, double totalDistance) {
+  // search, counted and reported to the query listener
+  private PathResult measuredSearch(String startName, String endName) {
+    QueryStats current = startQuery();
+    PathResult path = search(startName, endName);
+    finishQuery(current, path.settled());
+    return path;
+  }
+
+  // measuredSearch behind the cache, if there is one
+  private PathResult cachedSearch(String startName, String endName) {
+    PathCache c = cache;
+    if (c == null) {
+      return measuredSearch(startName, endName);
+    }
+    PathResult path = c.get(startName, endName);
     if (path == null) {
-      System.out.println("No path found");
-      return;
+      //read the epoch first so an answer computed across a change is not kept
+      long epoch = c.epoch();
+      path = measuredSearch(startName, endName);
+      c.put(startName, endName, path, epoch);
+    }
+    return path;
+  }
+
+  // Length of a road, read as a primitive weight when the graph supports it
+  protected double length(Edge<String> road) {
+    if (weightedGraph != null) {
+      return weightedGraph.weight(road);
+    }
+    return (double) graph.label(road);
+  }
+
+  // Read-only CSR copy of the network, rebuilt after the network changes
+  protected CsrGraph<String, String> snapshot() {
+    CsrGraph<String, String> csr = snapshot;
+    if (csr == null) {
+      synchronized (this) {
+        csr = snapshot;
+        if (csr == null) {
+          csr = new CsrGraph<>(graph, this::length);
+          snapshot = csr;
+        }
+      }
     }
+    return csr;
+  }
 
-    System.out.printf("Total Distance: %.4f\n", totalDistance);
-    for (int i = path.size() - 1; i >= 0; i--) {
-      System.out.printf("\t%6.2f \t%s\n", graph.label(path.get(i)), path.get(i).get());
+  // Result for a path of graph edges stored from end to start, null path for none or an empty trip
+  protected PathResult result(Vertex<String> start, List<Edge<String>> path, double totalDistance,
+                              int settled) {
+    if (totalDistance >= MAX_DISTANCE) {
+      return PathResult.notFound(settled);
+    }
+    int size = path == null ? 0 : path.size();
+    String[] names = new String[size + 1];
+    String[] roads = new String[size];
+    double[] lengths = new double[size];
+    names[0] = start.get();
+    for (int i = 0; i < size; i++) {
+      Edge<String> road = path.get(size - 1 - i);
+      names[i + 1] = graph.to(road).get();
+      roads[i] = road.get();
+      lengths[i] = length(road);
     }
+    return new PathResult(totalDistance, names, roads, lengths, settled);
   }
 
+  // Result for a path of snapshot edge ids stored from end to start, null path for none or an empty trip
+  protected PathResult result(CsrGraph<String, String> csr, int start, int[] path, double totalDistance,
+                              int settled) {
+    if (totalDistance >= MAX_DISTANCE) {
+      return PathResult.notFound(settled);
+    }
+    int size = path == null ? 0 : path.length;
+    String[] names = new String[size + 1];
+    String[] roads = new String[size];
+    double[] lengths = new double[size];
+    names[0] = csr.vertex(start);
+    for (int i = 0; i < size; i++) {
+      int e = path[size - 1 - i];
+      names[i + 1] = csr.vertex(csr.target(e));
+      roads[i] = csr.edge(e);
+      lengths[i] = csr.weight(e);
+    }
+    return new PathResult(totalDistance, names, roads, lengths, settled);
+  }
+
+  // True for searchers that only query snapshot(), so a binary network need not fill graph
+  protected boolean searchesSnapshot() {
+    return false;
+  }
+
+  // Check if name is an endpoint of the network this searcher answers queries on
+  protected boolean isEndpoint(String name) {
+    if (searchesSnapshot()) {
+      return snapshot().id(name) >= 0;
+    }
+    return vertices.containsKey(name);
+  }
+
+  /**
+   * Helper Function to check if given start and end points are valid vertices.
+   * @param startName String for name of starting vertex
+   * @param endName String for name of ending vertex
+   * @return true if both the start and end points are valid vertices, false otherwise
+   */
+  protected boolean validVertices(String startName, String endName) {
+    boolean start = isEndpoint(startName);
+    boolean end = isEndpoint(endName);
+    if (!start && !end) {
+      System.out.println("Invalid Endpoints: " + startName + ", " + endName);
+      return false;
+    } else if (!end) {
+      System.out.println("Invalid Endpoint: " + endName);
+      return false;
+    } else if (!start) {
+      System.out.println("Invalid Endpoint: " + startName);
+      return false;
+    }
+    return true;
+  }
 
   /**
-   * Find the shortest path.
+   * Find the shortest path, printing it as well if VERBOSE is set.
    *
    * @param startName starting vertex name
    * @param endName   ending vertex name
+   * @return the path found, or null if an endpoint is invalid
    */
-  public abstract void findShortestPath(String startName, String endName);
+  public PathResult findShortestPath(String startName, String endName) {
+    if (!validVertices(startName,endName)) {
+      return null;
+    }
+    PathResult path = cachedSearch(startName,endName);
+    if (VERBOSE) {
+      path.print(System.out);
+    }
+    return path;
+  }
+
+  /**
+   * Find the shortest paths between many pairs of endpoints, spreading the queries
+   * over the common fork-join pool.
+   *
+   * @param pairs start and end vertex names of each query
+   * @return the path found for each pair in the same order, null for a pair with an invalid endpoint
+   */
+  public List<PathResult> findShortestPaths(List<Pair<String, String>> pairs) {
+    return findShortestPaths(pairs, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Find the shortest paths between many pairs of endpoints, running the queries on executor.
+   * Nothing is printed. Consecutive pairs are handed out in chunks so that each task
+   * runs enough queries to outweigh its scheduling cost.
+   *
+   * @param pairs    start and end vertex names of each query
+   * @param executor runs the queries, for example a ForkJoinPool or a thread pool
+   * @return the path found for each pair in the same order, null for a pair with an invalid endpoint
+   */
+  public List<PathResult> findShortestPaths(List<Pair<String, String>> pairs, Executor executor) {
+    PathResult[] results = new PathResult[pairs.size()];
+    runInParallel(pairs.size(), executor, i -> {
+      Pair<String, String> pair = pairs.get(i);
+      if (isEndpoint(pair.first()) && isEndpoint(pair.second())) {
+        results[i] = cachedSearch(pair.first(), pair.second());
+      }
+    });
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Distances from every origin to every destination, computed on the common fork-join pool.
+   *
+   * @param origins      start vertex names
+   * @param destinations end vertex names
+   * @return row-major matrix, entry i * destinations.size() + j is the distance from
+   *         origin i to destination j, Double.POSITIVE_INFINITY if there is no path
+   * @throws IllegalArgumentException if a name is not an endpoint
+   */
+  public double[] distanceMatrix(List<String> origins, List<String> destinations) {
+    return distanceMatrix(origins, destinations, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Distances from every origin to every destination. Origins are spread over executor
+   * and each fills its own row through distancesFrom.
+   *
+   * @param origins      start vertex names
+   * @param destinations end vertex names
+   * @param executor     runs the searches, for example a ForkJoinPool or a thread pool
+   * @return row-major matrix, entry i * destinations.size() + j is the distance from
+   *         origin i to destination j, Double.POSITIVE_INFINITY if there is no path
+   * @throws IllegalArgumentException if a name is not an endpoint
+   */
+  public double[] distanceMatrix(List<String> origins, List<String> destinations, Executor executor) {
+    origins.forEach(this::checkValidEndpoint);
+    destinations.forEach(this::checkValidEndpoint);
+    int columns = destinations.size();
+    double[] matrix = new double[origins.size() * columns];
+    runInParallel(origins.size(), executor,
+        i -> distancesFrom(origins.get(i), destinations, matrix, i * columns));
+    return matrix;
+  }
+
+  /**
+   * Fill one row of a distance matrix, by default with one search per destination.
+   * Searchers that can reach many ends in one pass override this. Must be safe to call
+   * from many threads at once.
+   *
+   * @param origin       start vertex name
+   * @param destinations end vertex names
+   * @param matrix       matrix to fill
+   * @param offset       index in matrix of the distance to the first destination
+   */
+  protected void distancesFrom(String origin, List<String> destinations, double[] matrix, int offset) {
+    for (int j = 0; j < destinations.size(); j++) {
+      matrix[offset + j] = measuredSearch(origin, destinations.get(j)).totalDistance();
+    }
+  }
+
+  // Run task for 0 .. count-1 on executor, in chunks of consecutive indices so that
+  // each chunk does enough work to outweigh its scheduling cost
+  protected void runInParallel(int count, Executor executor, IntConsumer task) {
+    int tasks = Math.min(count, TASKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int t = 0; t < tasks; t++) {
+      //chunk t runs indices [from, to)
+      int from = (int) ((long) count * t / tasks);
+      int to = (int) ((long) count * (t + 1) / tasks);
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int i = from; i < to; i++) {
+          task.accept(i);
+        }
+      }, executor));
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Find the shortest path without printing anything. Must be safe to call from many
+   * threads at once.
+   * Pre-condition: both names are endpoints of the loaded network
+   *
+   * @param startName starting vertex name
+   * @param endName   ending vertex name
+   * @return the path found
+   */
+  protected abstract PathResult search(String startName, String endName);
 
   // Add an endpoint to the network if it is a new endpoint
   private Vertex<String> addLocation(String name) {
-    if (!vertices.containsKey(name)) {
-      Vertex<String> v = graph.insert(name);
+    Vertex<String> v = vertices.get(name);
+    if (v == null) {
+      v = graph.insert(name);
       vertices.put(name, v);
-      return v;
     }
-    return vertices.get(name);
+    return v;
   }
 
   /**
@@ -110,31 +449,93 @@ public abstract class StreetSearcher {
    * @throws FileNotFoundException thrown if invalid file provided
    */
   public void loadNetwork(File data) throws FileNotFoundException {
-    int numRoads = 0;
-
-    // Read in from file fileName
-    Scanner input = new Scanner(new FileInputStream(data));
-    while (input.hasNext()) {
-
-      // Parse the line in to <end1> <end2> <road-distance> <road-name>
-      String[] tokens = input.nextLine().split(" ");
-      String fromName = tokens[0];
-      String toName = tokens[1];
-      double roadDistance = Double.parseDouble(tokens[2]);
-      String roadName = tokens[3];
-
-      boolean roadAdded = addRoad(fromName, toName, roadDistance, roadName);
-      if (roadAdded) {
-        numRoads += 2;
+    int[] numRoads = {0};
+
+    //the roads added are reported as one change once the whole file is read
+    loading = true;
+    try {
+      // Read in from file fileName, each line parsed in to <end1> <end2> <road-distance> <road-name>
+      new NetworkReader().read(data, (fromName, toName, roadDistance, roadName) -> {
+        boolean roadAdded = addRoad(fromName, toName, roadDistance, roadName);
+        if (roadAdded) {
+          numRoads[0] += 2;
+        }
+      });
+    } finally {
+      loading = false;
+      networkChanged();
+    }
+    numLoaded = numRoads[0];
+    if (VERBOSE) {
+      System.out.printf("Network Loaded: %d roads, %d endpoints\n", numLoaded, vertices.size());
+    }
+  }
+
+  /**
+   * Save the loaded network in the binary format read by loadBinaryNetwork.
+   *
+   * @param file file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void saveNetwork(File file) throws IOException {
+    CsrGraphFile.write(snapshot(), file);
+  }
+
+  /**
+   * Load a network saved by saveNetwork. The file is read straight into the arrays of
+   * the snapshot, the graph is only filled in for searchers that walk it.
+   *
+   * @param file binary network file
+   * @throws IOException if the file cannot be read or is not a network file
+   */
+  public void loadBinaryNetwork(File file) throws IOException {
+    CsrGraph<String, String> csr = CsrGraphFile.read(file);
+    loading = true;
+    try {
+      if (!searchesSnapshot()) {
+        //every endpoint first, so those without roads are kept too
+        for (int u = 0; u < csr.numVertices(); u++) {
+          addLocation(csr.vertex(u));
+        }
+        for (int u = 0; u < csr.numVertices(); u++) {
+          for (int e = csr.outStart(u); e < csr.outEnd(u); e++) {
+            addOneWayRoad(csr.vertex(u), csr.vertex(csr.target(e)), csr.weight(e), csr.edge(e));
+          }
+        }
       }
+    } finally {
+      loading = false;
+      networkChanged();
     }
-    input.close();
-    numLoaded = numRoads;
+    snapshot = csr;
+    numLoaded = csr.numEdges();
     if (VERBOSE) {
-      System.out.printf("Network Loaded: %d roads, %d endpoints\n", numRoads, vertices.size());
+      System.out.printf("Network Loaded: %d roads, %d endpoints\n", numLoaded, csr.numVertices());
     }
   }
 
+  // Add a single direction of a road, used for binary networks which store both directions
+  private void addOneWayRoad(String from, String to, double distance, String road) {
+    Vertex<String> fromVertex = addLocation(from);
+    Vertex<String> toVertex = addLocation(to);
+    try {
+      insertRoad(fromVertex, toVertex, road, distance);
+    } catch (InsertionException ignored) {
+      // already loaded
+    }
+  }
+
+  // Insert a road holding its length, so listeners see it once and never with length 0,
+  // falling back to labels for plain graphs
+  private Edge<String> insertRoad(Vertex<String> from, Vertex<String> to, String road, double distance) {
+    if (weightedGraph != null) {
+      return weightedGraph.insert(from, to, road, distance);
+    }
+    Edge<String> roadEdge = graph.insert(from, to, road);
+    graph.label(roadEdge, distance);
+    return roadEdge;
+  }
+
   private boolean addRoad(String from, String to, double distance, String road) {
     // Get the fromVertex and toVertex endpoints, adding if necessary
     Vertex<String> fromVertex = addLocation(from);
@@ -142,23 +543,65 @@ public abstract class StreetSearcher {
 
     // Add the road toVertex the network - We assume all roads are two-way and
     // ignore if we've already added the road as a reverse of another
+    Edge<String> roadEdge;
     try {
-      Edge<String> roadEdge = graph.insert(fromVertex, toVertex, road);
-      Edge<String> backwardsRoad = graph.insert(toVertex, fromVertex, road);
-
-      // Label each road with its weight
-      graph.label(roadEdge, distance);
-      graph.label(backwardsRoad, distance);
-
+      roadEdge = insertRoad(fromVertex, toVertex, road, distance);
     } catch (InsertionException ignored) {
       return false;
     }
 
+    // Add the other direction, taking the road out again if that fails so that no
+    // half-added one-way road is left behind
+    try {
+      insertRoad(toVertex, fromVertex, road, distance);
+    } catch (RuntimeException ex) {
+      graph.remove(roadEdge);
+      if (ex instanceof InsertionException) {
+        return false;
+      }
+      throw ex;
+    }
+
     return true;
   }
 
+  //private class reporting every change of the graph to networkChanged, except those
+  //made while a network is loaded
+  private class ChangeListener implements GraphListener<String, String> {
+    @Override
+    public void vertexInserted(Vertex<String> v) {
+      changed();
+    }
+
+    @Override
+    public void vertexRemoved(Vertex<String> v, int id) {
+      changed();
+    }
+
+    @Override
+    public void edgeInserted(Edge<String> e) {
+      changed();
+    }
+
+    @Override
+    public void edgeRemoved(Edge<String> e, Vertex<String> from, Vertex<String> to, double weight) {
+      changed();
+    }
+
+    @Override
+    public void weightChanged(Edge<String> e, double oldWeight) {
+      changed();
+    }
+
+    private void changed() {
+      if (!loading) {
+        networkChanged();
+      }
+    }
+  }
+
   protected void checkValidEndpoint(String endpointName) {
-    if (!vertices.containsKey(endpointName)) {
+    if (!isEndpoint(endpointName)) {
       throw new IllegalArgumentException("Invalid Endpoint: " + endpointName);
     }
   }
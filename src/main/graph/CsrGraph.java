@@ -0,0 +1,272 @@
+package hw8.graph;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable snapshot of a directed graph in Compressed Sparse Row form.
+ *
+ * <p>Vertices are numbered with dense int ids 0..numVertices()-1 and edges
+ * with dense int ids 0..numEdges()-1. The outgoing edges of vertex u are the
+ * edge ids outStart(u) (inclusive) to outEnd(u) (exclusive), so walking them
+ * is a scan over primitive arrays. Incoming edges are indexed the same way
+ * through inStart(v), inEnd(v) and inEdge(i).</p>
+ *
+ * <p>Snapshots are Serializable (as long as V and E are) so structures built
+ * on top of them can be stored together with them.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public class CsrGraph<V, E> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Object[] vertexData;
+  private final Map<V, Integer> ids;
+
+  // outOffsets[u]..outOffsets[u+1] are the edge ids leaving u, so they also give the source of each edge
+  private final int[] outOffsets;
+  private final int[] targets;
+  private final double[] weights;
+  private final Object[] edgeData;
+
+  // inEdges[inOffsets[v]..inOffsets[v+1]] are the edge ids entering v
+  private final int[] inOffsets;
+  private final int[] inEdges;
+
+  /**
+   * Build a snapshot of graph, reading edge weights from the edge labels.
+   * Pre-condition: every edge label is a Number.
+   * @param graph graph to copy
+   */
+  public CsrGraph(Graph<V, E> graph) {
+    this(graph, e -> ((Number) graph.label(e)).doubleValue());
+  }
+
+  /**
+   * Build a snapshot of graph.
+   * @param graph graph to copy
+   * @param weight function giving the weight of each edge of graph
+   */
+  public CsrGraph(Graph<V, E> graph, ToDoubleFunction<Edge<E>> weight) {
+    //number the vertices in iteration order
+    Map<Vertex<V>, Integer> vertexIds = new HashMap<>();
+    for (Vertex<V> v : graph.vertices()) {
+      vertexIds.put(v, vertexIds.size());
+    }
+    int n = vertexIds.size();
+    this.vertexData = new Object[n];
+    this.ids = new HashMap<>(n * 2);
+    this.outOffsets = new int[n + 1];
+
+    //count the outgoing edges of each vertex to lay out the offsets
+    int m = 0;
+    for (Map.Entry<Vertex<V>, Integer> entry : vertexIds.entrySet()) {
+      int u = entry.getValue();
+      V data = entry.getKey().get();
+      vertexData[u] = data;
+      ids.put(data, u);
+      for (Edge<E> ignored : graph.outgoing(entry.getKey())) {
+        outOffsets[u + 1]++;
+        m++;
+      }
+    }
+    for (int u = 0; u < n; u++) {
+      outOffsets[u + 1] += outOffsets[u];
+    }
+
+    this.targets = new int[m];
+    this.weights = new double[m];
+    this.edgeData = new Object[m];
+    for (Map.Entry<Vertex<V>, Integer> entry : vertexIds.entrySet()) {
+      int u = entry.getValue();
+      int e = outOffsets[u];
+      for (Edge<E> edge : graph.outgoing(entry.getKey())) {
+        targets[e] = vertexIds.get(graph.to(edge));
+        weights[e] = weight.applyAsDouble(edge);
+        edgeData[e] = edge.get();
+        e++;
+      }
+    }
+
+    this.inOffsets = new int[n + 1];
+    this.inEdges = new int[m];
+    buildIncoming();
+  }
+
+  /**
+   * Build a snapshot straight from its arrays, used by readers of stored snapshots.
+   * @param vertexData data of each vertex, indexed by id
+   * @param outOffsets outOffsets[u]..outOffsets[u+1] are the edge ids leaving u
+   * @param targets target vertex id of each edge
+   * @param weights weight of each edge
+   * @param edgeData data of each edge
+   */
+  CsrGraph(Object[] vertexData, int[] outOffsets, int[] targets, double[] weights, Object[] edgeData) {
+    int n = vertexData.length;
+    this.vertexData = vertexData;
+    this.ids = new HashMap<>(n * 2);
+    for (int u = 0; u < n; u++) {
+      //readers only pass data read back from a snapshot of a Graph<V, E>
+      @SuppressWarnings("unchecked")
+      V data = (V) vertexData[u];
+      ids.put(data, u);
+    }
+    this.outOffsets = outOffsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.edgeData = edgeData;
+    this.inOffsets = new int[n + 1];
+    this.inEdges = new int[targets.length];
+    buildIncoming();
+  }
+
+  // Counting sort of the edge ids by target to fill inOffsets and inEdges
+  private void buildIncoming() {
+    int n = vertexData.length;
+    for (int target : targets) {
+      inOffsets[target + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      inOffsets[v + 1] += inOffsets[v];
+    }
+    int[] next = Arrays.copyOf(inOffsets, n);
+    for (int e = 0; e < targets.length; e++) {
+      inEdges[next[targets[e]]++] = e;
+    }
+  }
+
+  /**
+   * Number of vertices.
+   * @return number of vertices in the snapshot
+   */
+  public int numVertices() {
+    return vertexData.length;
+  }
+
+  /**
+   * Number of edges.
+   * @return number of edges in the snapshot
+   */
+  public int numEdges() {
+    return targets.length;
+  }
+
+  /**
+   * Id of the vertex holding the given data.
+   * @param v vertex data
+   * @return id of the vertex, or -1 if no vertex holds v
+   */
+  public int id(V v) {
+    Integer id = ids.get(v);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Data of a vertex.
+   * @param u vertex id
+   * @return data stored at vertex u
+   */
+  @SuppressWarnings("unchecked") //vertexData only holds the V of the graph copied
+  public V vertex(int u) {
+    return (V) vertexData[u];
+  }
+
+  /**
+   * First outgoing edge id of a vertex.
+   * @param u vertex id
+   * @return first edge id leaving u
+   */
+  public int outStart(int u) {
+    return outOffsets[u];
+  }
+
+  /**
+   * End of the outgoing edge ids of a vertex.
+   * @param u vertex id
+   * @return one past the last edge id leaving u
+   */
+  public int outEnd(int u) {
+    return outOffsets[u + 1];
+  }
+
+  /**
+   * Start of the incoming edges of a vertex, to be read through inEdge.
+   * @param v vertex id
+   * @return first index into the incoming edges of v
+   */
+  public int inStart(int v) {
+    return inOffsets[v];
+  }
+
+  /**
+   * End of the incoming edges of a vertex, to be read through inEdge.
+   * @param v vertex id
+   * @return one past the last index into the incoming edges of v
+   */
+  public int inEnd(int v) {
+    return inOffsets[v + 1];
+  }
+
+  /**
+   * Edge id of an entry in the incoming edges.
+   * @param i index between inStart(v) and inEnd(v) for some v
+   * @return id of the edge
+   */
+  public int inEdge(int i) {
+    return inEdges[i];
+  }
+
+  /**
+   * Start vertex of an edge, found by binary search over the outgoing edge ranges.
+   * Loops over every edge should walk the vertices and their outStart..outEnd instead.
+   * @param e edge id
+   * @return id of the vertex edge e starts from
+   */
+  public int source(int e) {
+    //last vertex whose range starts at or before e, later ones with empty ranges included
+    int lo = 0;
+    int hi = vertexData.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (outOffsets[mid] <= e) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * End vertex of an edge.
+   * @param e edge id
+   * @return id of the vertex edge e leads to
+   */
+  public int target(int e) {
+    return targets[e];
+  }
+
+  /**
+   * Weight of an edge.
+   * @param e edge id
+   * @return weight of edge e
+   */
+  public double weight(int e) {
+    return weights[e];
+  }
+
+  /**
+   * Data of an edge.
+   * @param e edge id
+   * @return data stored at edge e
+   */
+  @SuppressWarnings("unchecked") //edgeData only holds the E of the graph copied
+  public E edge(int e) {
+    return (E) edgeData[e];
+  }
+}
@@ -0,0 +1,326 @@
+package hw8.graph;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned binary file format for road network snapshots.
+ *
+ * <p>Layout, all numbers little-endian:</p>
+ * <pre>
+ *   int magic "HW8N", int version, int n, int m, int r, int padding
+ *   double[m]  weights
+ *   int[n + 1] outgoing edge offsets
+ *   int[m]     edge targets
+ *   int[m]     edge road name index into the r road names
+ *   int[n]     vertex name byte lengths, then the UTF-8 vertex names
+ *   int[r]     road name byte lengths, then the UTF-8 road names
+ * </pre>
+ *
+ * <p>Road names are stored once each. Reading streams the file through one buffer
+ * straight into the heap arrays of the snapshot, so no text is parsed. The file is
+ * not memory-mapped: the snapshot needs its arrays on the heap anyway, so a mapping
+ * would only add a copy and limit each section to 2GB. The counts in the header are
+ * checked against the file length before anything is allocated, and offsets, targets
+ * and name indices against the counts, and vertex names must be distinct, so a
+ * corrupt file fails with an IOException.</p>
+ */
+public final class CsrGraphFile {
+
+  private static final int MAGIC = 0x4e385748; // "HW8N" read as little-endian bytes
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 24;
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private CsrGraphFile() {
+  }
+
+  /**
+   * Write a snapshot to a file.
+   *
+   * @param graph snapshot to write
+   * @param file file to write
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if a vertex or road has no name, checked before the
+   *                                  file is opened
+   */
+  public static void write(CsrGraph<String, String> graph, File file) throws IOException {
+    int n = graph.numVertices();
+    int m = graph.numEdges();
+    for (int u = 0; u < n; u++) {
+      if (graph.vertex(u) == null) {
+        throw new IllegalArgumentException("Vertex " + u + " has no name");
+      }
+    }
+
+    //number the distinct road names
+    Map<String, Integer> roadIds = new HashMap<>();
+    int[] roads = new int[m];
+    String[] roadNames = new String[m];
+    for (int e = 0; e < m; e++) {
+      String road = graph.edge(e);
+      if (road == null) {
+        throw new IllegalArgumentException("Edge " + e + " has no road name");
+      }
+      Integer id = roadIds.get(road);
+      if (id == null) {
+        id = roadIds.size();
+        roadIds.put(road, id);
+        roadNames[id] = road;
+      }
+      roads[e] = id;
+    }
+    int r = roadIds.size();
+
+    try (FileOutputStream stream = new FileOutputStream(file);
+         FileChannel channel = stream.getChannel()) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putInt(r).putInt(0);
+      for (int e = 0; e < m; e++) {
+        buffer = room(channel, buffer, Double.BYTES).putDouble(graph.weight(e));
+      }
+      for (int u = 0; u < n; u++) {
+        buffer = room(channel, buffer, Integer.BYTES).putInt(graph.outStart(u));
+      }
+      buffer = room(channel, buffer, Integer.BYTES).putInt(m);
+      for (int e = 0; e < m; e++) {
+        buffer = room(channel, buffer, Integer.BYTES).putInt(graph.target(e));
+      }
+      for (int e = 0; e < m; e++) {
+        buffer = room(channel, buffer, Integer.BYTES).putInt(roads[e]);
+      }
+      byte[][] vertexBytes = new byte[n][];
+      for (int u = 0; u < n; u++) {
+        vertexBytes[u] = graph.vertex(u).getBytes(StandardCharsets.UTF_8);
+      }
+      buffer = writeNames(channel, buffer, vertexBytes);
+      byte[][] roadBytes = new byte[r][];
+      for (int i = 0; i < r; i++) {
+        roadBytes[i] = roadNames[i].getBytes(StandardCharsets.UTF_8);
+      }
+      buffer = writeNames(channel, buffer, roadBytes);
+      flush(channel, buffer);
+    }
+  }
+
+  /**
+   * Read a snapshot written by write().
+   *
+   * @param file file to read
+   * @return the stored snapshot
+   * @throws IOException if the file cannot be read, is not a network file of this version,
+   *                     or is truncated or corrupt
+   */
+  public static CsrGraph<String, String> read(File file) throws IOException {
+    try (FileInputStream stream = new FileInputStream(file);
+         FileChannel channel = stream.getChannel()) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("Not a network file: " + file);
+      }
+      Reader in = new Reader(channel);
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a network file: " + file);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported network file version " + version + ": " + file);
+      }
+      int n = in.readInt();
+      int m = in.readInt();
+      int r = in.readInt();
+      in.readInt();
+      //the fixed size sections alone must fit in the file, names take at least 0 bytes each
+      long minimum = HEADER_BYTES + (long) m * (Double.BYTES + 2 * Integer.BYTES)
+          + (long) (n + 1) * Integer.BYTES + (long) n * Integer.BYTES + (long) r * Integer.BYTES;
+      if (n < 0 || m < 0 || r < 0 || minimum > size) {
+        throw corrupt(file, "counts " + n + ", " + m + ", " + r + " do not fit in " + size + " bytes");
+      }
+
+      double[] weights = in.readDoubles(m);
+      int[] offsets = in.readInts(n + 1);
+      if (offsets[0] != 0 || offsets[n] != m) {
+        throw corrupt(file, "edge offsets do not cover the " + m + " edges");
+      }
+      for (int u = 0; u < n; u++) {
+        if (offsets[u] > offsets[u + 1]) {
+          throw corrupt(file, "edge offsets decrease at vertex " + u);
+        }
+      }
+      int[] targets = in.readInts(m);
+      int[] roads = in.readInts(m);
+      for (int e = 0; e < m; e++) {
+        if (targets[e] < 0 || targets[e] >= n || roads[e] < 0 || roads[e] >= r) {
+          throw corrupt(file, "edge " + e + " refers to a missing vertex or road name");
+        }
+      }
+
+      String[] vertexNames = in.readNames(n, size);
+      Set<String> distinct = new HashSet<>(n * 2);
+      for (String name : vertexNames) {
+        if (!distinct.add(name)) {
+          throw corrupt(file, "vertex name " + name + " appears twice");
+        }
+      }
+      String[] roadNames = in.readNames(r, size);
+      if (in.position() != size) {
+        throw new IOException("Network file has " + (size - in.position()) + " unexpected bytes: " + file);
+      }
+
+      Object[] edgeData = new Object[m];
+      for (int e = 0; e < m; e++) {
+        edgeData[e] = roadNames[roads[e]];
+      }
+      return new CsrGraph<>(vertexNames, offsets, targets, weights, edgeData);
+    } catch (EOFException ex) {
+      throw corrupt(file, "it is truncated");
+    }
+  }
+
+  private static IOException corrupt(File file, String reason) {
+    return new IOException("Corrupt network file, " + reason + ": " + file);
+  }
+
+  private static ByteBuffer writeNames(FileChannel channel, ByteBuffer buffer, byte[][] names)
+      throws IOException {
+    for (byte[] name : names) {
+      buffer = room(channel, buffer, Integer.BYTES).putInt(name.length);
+    }
+    for (byte[] name : names) {
+      int written = 0;
+      while (written < name.length) {
+        buffer = room(channel, buffer, 1);
+        int count = Math.min(buffer.remaining(), name.length - written);
+        buffer.put(name, written, count);
+        written += count;
+      }
+    }
+    return buffer;
+  }
+
+  // Make sure buffer has room for bytes more bytes, writing it out if it does not
+  private static ByteBuffer room(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush(channel, buffer);
+    }
+    return buffer;
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  //private class reading little-endian values from a channel through one buffer
+  private static final class Reader {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    // bytes of the file consumed from the buffer so far
+    private long position;
+
+    Reader(FileChannel channel) {
+      this.channel = channel;
+      buffer.limit(0);
+    }
+
+    long position() {
+      return position;
+    }
+
+    // Make sure the buffer holds at least bytes more bytes, reading on from the channel
+    private void need(int bytes) throws IOException {
+      if (buffer.remaining() >= bytes) {
+        return;
+      }
+      buffer.compact();
+      while (buffer.position() < bytes) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException();
+        }
+      }
+      buffer.flip();
+    }
+
+    int readInt() throws IOException {
+      need(Integer.BYTES);
+      position += Integer.BYTES;
+      return buffer.getInt();
+    }
+
+    // Bulk reads copy as many values as the buffer holds at a time
+    double[] readDoubles(int count) throws IOException {
+      double[] values = new double[count];
+      for (int i = 0; i < count; ) {
+        need(Double.BYTES);
+        int chunk = Math.min(count - i, buffer.remaining() / Double.BYTES);
+        buffer.asDoubleBuffer().get(values, i, chunk);
+        skip(chunk * Double.BYTES);
+        i += chunk;
+      }
+      return values;
+    }
+
+    int[] readInts(int count) throws IOException {
+      int[] values = new int[count];
+      for (int i = 0; i < count; ) {
+        need(Integer.BYTES);
+        int chunk = Math.min(count - i, buffer.remaining() / Integer.BYTES);
+        buffer.asIntBuffer().get(values, i, chunk);
+        skip(chunk * Integer.BYTES);
+        i += chunk;
+      }
+      return values;
+    }
+
+    private void skip(int bytes) {
+      buffer.position(buffer.position() + bytes);
+      position += bytes;
+    }
+
+    // count byte lengths followed by the UTF-8 names, which must end by size
+    String[] readNames(int count, long size) throws IOException {
+      int[] lengths = readInts(count);
+      long total = 0;
+      for (int length : lengths) {
+        if (length < 0) {
+          throw new IOException("Corrupt network file, negative name length");
+        }
+        total += length;
+      }
+      if (position + total > size) {
+        throw new EOFException();
+      }
+      String[] names = new String[count];
+      byte[] name = new byte[64];
+      for (int i = 0; i < count; i++) {
+        if (lengths[i] > name.length) {
+          name = new byte[lengths[i]];
+        }
+        int read = 0;
+        while (read < lengths[i]) {
+          need(1);
+          int chunk = Math.min(buffer.remaining(), lengths[i] - read);
+          buffer.get(name, read, chunk);
+          read += chunk;
+        }
+        position += lengths[i];
+        names[i] = new String(name, 0, lengths[i], StandardCharsets.UTF_8);
+      }
+      return names;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package hw8.graph;
+
+/**
+ * Receives the changes made to a SparseGraph, called right after each change
+ * on the thread that made it. Every method does nothing by default.
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public interface GraphListener<V, E> {
+
+  /**
+   * A vertex was inserted.
+   *
+   * @param v the new vertex
+   */
+  default void vertexInserted(Vertex<V> v) {
+  }
+
+  /**
+   * A vertex without edges was removed.
+   *
+   * @param v  the removed vertex, no longer a valid position
+   * @param id the id it had, which a later vertex may get
+   */
+  default void vertexRemoved(Vertex<V> v, int id) {
+  }
+
+  /**
+   * An edge was inserted, already holding its weight: 0 unless it was inserted
+   * through WeightedGraph.insert(from, to, e, w).
+   *
+   * @param e the new edge
+   */
+  default void edgeInserted(Edge<E> e) {
+  }
+
+  /**
+   * An edge was removed.
+   *
+   * @param e      the removed edge, no longer a valid position
+   * @param from   its origin
+   * @param to     its destination
+   * @param weight its weight
+   */
+  default void edgeRemoved(Edge<E> e, Vertex<V> from, Vertex<V> to, double weight) {
+  }
+
+  /**
+   * The weight of an edge was set.
+   *
+   * @param e         the edge, already holding its new weight
+   * @param oldWeight its weight before
+   */
+  default void weightChanged(Edge<E> e, double oldWeight) {
+  }
+}
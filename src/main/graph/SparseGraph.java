@@ -1,37 +1,132 @@
 package hw8.graph;
 
-import static java.util.Objects.hash;
-
 import exceptions.InsertionException;
 import exceptions.PositionException;
 import exceptions.RemovalException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 
 /**
  * An implementation of Graph ADT using incidence lists
  * for sparse graphs where most nodes aren't connected.
+ * Edges also carry a primitive weight (see WeightedGraph).
+ *
+ * <p>Every vertex has an int id that stays the same until it is removed, and the
+ * vertices are kept in an array by id. Vertices and edges are compared by identity,
+ * so checking that a position belongs to this graph is an array access instead of
+ * a hash lookup.</p>
+ *
+ * <p>vertices() and edges() are live read-only views, not copies. The edges view
+ * walks the outgoing lists, which hold every edge exactly once, and its spliterator
+ * splits by vertex id range, so a stream made with
+ * {@code StreamSupport.stream(graph.edges().spliterator(), true)} runs in parallel.
+ * Iterators fail fast if vertices, or edges for the edges view, are inserted or
+ * removed while they are in use.</p>
+ *
+ * <p>Labels are stamped with the epoch they were set in and clearLabels() just
+ * starts a new epoch, so older labels read as null and clearing costs O(1)
+ * whatever the size of the graph. A cleared label stays reachable until its
+ * position is labeled again or removed.</p>
+ *
+ * <p>Changes to vertices, edges and weights are reported to the GraphListeners
+ * added with addListener, so derived structures can follow the graph.</p>
  *
  * @param <V> Vertex element type.
  * @param <E> Edge element type.
  */
-public class SparseGraph<V, E> implements Graph<V, E> {
-
-  //HashMap which associates the vertices (keys) to its incident edges
-  //which themselves are contained within individual HashSets
-  private HashMap<VertexNode<V>, HashSet<EdgeNode<E>>> incidenceList;
+public class SparseGraph<V, E> implements WeightedGraph<V, E> {
+
+  //all vertices of this SparseGraph indexed by id, null where a removed vertex was,
+  //each VertexNode keeps its own outgoing and incoming edges in individual lists
+  private ArrayList<VertexNode<V>> vertexList;
+  //ids of removed vertices, handed out again before new ids
+  private int[] freeIds;
+  private int numFreeIds;
+  private int numVertices;
+  private int numEdges;
+  //number of vertex and edge inserts and removals so far, lets iterators detect changes made under them
+  private int vertexModCount;
+  private int edgeModCount;
+  //vertex for each element, so inserting an element twice can be rejected
+  private HashMap<V, VertexNode<V>> vertexByData;
+  //labels set before the current epoch read as null
+  private int labelEpoch;
+  //told about every change, copied on write so a listener may remove itself while notified
+  private CopyOnWriteArrayList<GraphListener<V, E>> listeners;
+  //read-only views handed out by vertices() and edges()
+  private Collection<Vertex<V>> vertexView;
+  private Collection<Edge<E>> edgeView;
 
   /**
    * default constructor for SparseGraph Object.
    */
   public SparseGraph() {
-    this.incidenceList = new HashMap<>();
+    this.vertexList = new ArrayList<>();
+    this.freeIds = new int[4];
+    this.numFreeIds = 0;
+    this.numVertices = 0;
+    this.numEdges = 0;
+    this.vertexModCount = 0;
+    this.edgeModCount = 0;
+    this.labelEpoch = 0;
+    this.vertexByData = new HashMap<>();
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.vertexView = new VertexView();
+    this.edgeView = new EdgeView();
+  }
+
+  /**
+   * Id of a vertex of this graph, unchanged until the vertex is removed. Ids are
+   * below vertexCapacity() and the id of a removed vertex may be given to a new one.
+   *
+   * @param v the vertex
+   * @return id of v
+   * @throws PositionException if v is invalid or not in the graph
+   */
+  public int id(Vertex<V> v) throws PositionException {
+    return validVertex(v).id;
+  }
+
+  /**
+   * One more than the largest vertex id in use, for sizing arrays indexed by id.
+   *
+   * @return bound on vertex ids
+   */
+  public int vertexCapacity() {
+    return vertexList.size();
+  }
+
+
+  /**
+   * Report every later change of this graph to listener.
+   *
+   * @param listener called right after each change
+   */
+  public void addListener(GraphListener<V, E> listener) {
+    listeners.add(listener);
   }
 
+  /**
+   * Stop reporting changes to listener.
+   *
+   * @param listener a listener added before
+   */
+  public void removeListener(GraphListener<V, E> listener) {
+    listeners.remove(listener);
+  }
 
   // Converts the vertex back to a VertexNode to use internally
   private VertexNode<V> convert(Vertex<V> v) throws PositionException {
@@ -62,13 +157,23 @@ public class SparseGraph<V, E> implements Graph<V, E> {
   //INSERT VERTEX
   @Override
   public Vertex<V> insert(V v) throws InsertionException {
-    VertexNode<V> newVertex = new VertexNode<>(v,this);
-    if (v == null || incidenceList.containsKey(newVertex)) {
+    if (v == null || vertexByData.containsKey(v)) {
       throw new InsertionException();
     }
-    //initializing empty HashSet to store edges which are incident to this new vertex
-    HashSet<EdgeNode<E>> newEdgeSet = new HashSet<>(5);
-    incidenceList.put(newVertex,newEdgeSet);
+    //reuse the id of a removed vertex if there is one
+    int id = numFreeIds > 0 ? freeIds[--numFreeIds] : vertexList.size();
+    VertexNode<V> newVertex = new VertexNode<>(v,id,this);
+    if (id == vertexList.size()) {
+      vertexList.add(newVertex);
+    } else {
+      vertexList.set(id,newVertex);
+    }
+    vertexByData.put(v,newVertex);
+    numVertices++;
+    vertexModCount++;
+    for (GraphListener<V, E> listener : listeners) {
+      listener.vertexInserted(newVertex);
+    }
     return newVertex;
   }
 
@@ -76,17 +181,30 @@ public class SparseGraph<V, E> implements Graph<V, E> {
   @Override
   public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e)
       throws PositionException, InsertionException {
-    VertexNode<V> fromNode = convert(from);
-    VertexNode<V> toNode = convert(to);
+    return insert(from, to, e, 0);
+  }
+
+  //INSERT WEIGHTED EDGE, listeners see the weight in the one edgeInserted event
+  @Override
+  public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e, double w)
+      throws PositionException, InsertionException {
+    VertexNode<V> fromNode = validVertex(from);
+    VertexNode<V> toNode = validVertex(to);
+    //call private helper method to protect against self-loop and duplicate edges
+    insertEdgePossible(fromNode,toNode);
     EdgeNode<E> newEdge = new EdgeNode<>(fromNode,toNode,e,this);
-    //call private helper method to confirm if given vertices are valid
-    //and protect against self-loop and duplicate edges
-    insertEdgePossible(fromNode,toNode,newEdge);
-    //add newly created edge to list of incident edges for the origin and destination matrix
-    incidenceList.get(fromNode).add(newEdge);
-    fromNode.degree++;
-    incidenceList.get(toNode).add(newEdge);
-    toNode.degree++;
+    newEdge.weight = w;
+    //add newly created edge to the outgoing edges of the origin and the incoming edges of the destination,
+    //remembering where so it can be removed without a search
+    newEdge.outIndex = fromNode.outEdges.size();
+    fromNode.outEdges.add(newEdge);
+    newEdge.inIndex = toNode.inEdges.size();
+    toNode.inEdges.add(newEdge);
+    numEdges++;
+    edgeModCount++;
+    for (GraphListener<V, E> listener : listeners) {
+      listener.edgeInserted(newEdge);
+    }
     return newEdge;
   }
 
@@ -94,17 +212,26 @@ public class SparseGraph<V, E> implements Graph<V, E> {
    * private helper function to throw exception if inserting a new edge is not possible.
    * @param from origin vertex for new edge
    * @param to destination vertex for new edge.
-   * @throws PositionException if either vertex position (from or to) is invalid
    * @throws InsertionException if insertion would create a self-loop or duplicate edge
    */
-  private void insertEdgePossible(VertexNode<V> from, VertexNode<V> to, EdgeNode<E> newEdge)
-          throws PositionException, InsertionException {
-    if (!incidenceList.containsKey(from) || !incidenceList.containsKey(to)) {
-      throw new PositionException();
-    }
-    if (from.equals(to) || incidenceList.get(from).contains(newEdge)) {
+  private void insertEdgePossible(VertexNode<V> from, VertexNode<V> to) throws InsertionException {
+    if (from == to) {
       throw new InsertionException();
     }
+    //search for an existing edge in the list of edges which has fewer edges (for efficiency)
+    if (from.outEdges.size() <= to.inEdges.size()) {
+      for (EdgeNode<E> edge : from.outEdges) {
+        if (edge.to == to) {
+          throw new InsertionException();
+        }
+      }
+    } else {
+      for (EdgeNode<E> edge : to.inEdges) {
+        if (edge.from == from) {
+          throw new InsertionException();
+        }
+      }
+    }
   }
 
   /**
@@ -115,7 +242,8 @@ public class SparseGraph<V, E> implements Graph<V, E> {
    */
   private VertexNode<V> validVertex(Vertex<V> v) throws PositionException {
     VertexNode<V> vertexNode = convert(v);
-    if (!incidenceList.containsKey(vertexNode)) {
+    //a vertex is in the graph if it is the one stored under its id
+    if (vertexList.get(vertexNode.id) != vertexNode) {
       throw new PositionException();
     }
     return vertexNode;
@@ -128,31 +256,31 @@ public class SparseGraph<V, E> implements Graph<V, E> {
    * @throws PositionException if e is invalid or not in the graph
    */
   private EdgeNode<E> validEdge(Edge<E> e) throws PositionException {
-    EdgeNode<E> edgeNode = convert(e);
-    VertexNode<V> from = edgeNode.from;
-    VertexNode<V> to = edgeNode.to;
-    HashSet<EdgeNode<E>> edgeSet;
-    //search for edge in HashSet of edges which has fewer edges (for efficiency)
-    if (from.degree >= to.degree) {
-      edgeSet = incidenceList.get(to);
-    } else {
-      edgeSet = incidenceList.get(from);
-    }
-    if (!edgeSet.contains(edgeNode)) {
-      throw new PositionException();
-    }
-    return edgeNode;
+    //removed edges lose their owner, so convert() alone validates e
+    return convert(e);
   }
 
   //REMOVE VERTEX
   @Override
   public V remove(Vertex<V> v) throws PositionException, RemovalException {
     VertexNode<V> vertexNode = validVertex(v);
-    //not allowed to remove vertex if it still has incident edges (the associated HashSet contains EdgeNode objects)
-    if (!(incidenceList.get(vertexNode).isEmpty())) {
+    //not allowed to remove vertex if it still has incident edges (either list contains EdgeNode objects)
+    if (!vertexNode.outEdges.isEmpty() || !vertexNode.inEdges.isEmpty()) {
       throw new RemovalException();
     }
-    incidenceList.remove(vertexNode);
+    vertexList.set(vertexNode.id,null);
+    if (numFreeIds == freeIds.length) {
+      freeIds = Arrays.copyOf(freeIds,numFreeIds * 2);
+    }
+    freeIds[numFreeIds++] = vertexNode.id;
+    vertexByData.remove(vertexNode.data);
+    numVertices--;
+    vertexModCount++;
+    //a removed vertex no longer belongs to this graph, so convert() rejects it from now on
+    vertexNode.owner = null;
+    for (GraphListener<V, E> listener : listeners) {
+      listener.vertexRemoved(vertexNode,vertexNode.id);
+    }
     return vertexNode.data;
   }
 
@@ -162,62 +290,51 @@ public class SparseGraph<V, E> implements Graph<V, E> {
     EdgeNode<E> edgeNode = validEdge(e);
     VertexNode<V> from = edgeNode.from;
     VertexNode<V> to = edgeNode.to;
-    //remove the edge from the incident edges set of both its origin and destination vertex
-    incidenceList.get(from).remove(edgeNode);
-    from.degree--;
-    incidenceList.get(to).remove(edgeNode);
-    to.degree--;
+    //remove the edge from the outgoing edges of its origin and the incoming edges of its destination
+    //by moving the last edge of each list into its place
+    EdgeNode<E> lastOut = from.outEdges.remove(from.outEdges.size() - 1);
+    if (lastOut != edgeNode) {
+      from.outEdges.set(edgeNode.outIndex,lastOut);
+      lastOut.outIndex = edgeNode.outIndex;
+    }
+    EdgeNode<E> lastIn = to.inEdges.remove(to.inEdges.size() - 1);
+    if (lastIn != edgeNode) {
+      to.inEdges.set(edgeNode.inIndex,lastIn);
+      lastIn.inIndex = edgeNode.inIndex;
+    }
+    numEdges--;
+    edgeModCount++;
+    //a removed edge no longer belongs to this graph, so convert() rejects it from now on
+    edgeNode.owner = null;
+    for (GraphListener<V, E> listener : listeners) {
+      listener.edgeRemoved(edgeNode,from,to,edgeNode.weight);
+    }
     return edgeNode.data;
   }
 
   @Override
   public Iterable<Vertex<V>> vertices() {
-    Set<VertexNode<V>> vertexSet = incidenceList.keySet();
-    return Collections.unmodifiableSet(vertexSet);
+    return vertexView;
   }
 
   @Override
   public Iterable<Edge<E>> edges() {
-    //creating new Set to hold all the edges in This SparseGraph
-    Set<EdgeNode<E>> allEdges = new HashSet<>();
-    //extracting all edges from the SparseGraph and consolidating each individual set into one set
-    Collection<HashSet<EdgeNode<E>>> hashEdgeSets = incidenceList.values();
-    for (HashSet<EdgeNode<E>> edgeSet : hashEdgeSets) {
-      allEdges.addAll(edgeSet);
-    }
-    return Collections.unmodifiableSet(allEdges);
+    //every edge is the outgoing edge of exactly one vertex, so walking the outgoing lists finds each once
+    return edgeView;
   }
 
   @Override
   public Iterable<Edge<E>> outgoing(Vertex<V> v) throws PositionException {
     VertexNode<V> vertexNode = validVertex(v);
-    //extract Set of all incident edges associated with vertex v
-    HashSet<EdgeNode<E>> incidentEdges = incidenceList.get(vertexNode);
-    //create new Set to hold the outgoing edges
-    Set<EdgeNode<E>> outgoingEdges = new HashSet<>();
-    //add only the outgoing edges to the new Set to be returned as outgoing iterable
-    for (EdgeNode<E> edge : incidentEdges) {
-      if (edge.from.equals(v)) {
-        outgoingEdges.add(edge);
-      }
-    }
-    return Collections.unmodifiableSet(outgoingEdges);
+    //read-only view of the outgoing edges, no copy is made
+    return vertexNode.outView;
   }
 
   @Override
   public Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException {
     VertexNode<V> vertexNode = validVertex(v);
-    //extract set of all incident edges associated with vertex v
-    HashSet<EdgeNode<E>> incidentEdges = incidenceList.get(vertexNode);
-    //create new set to hold incoming edges
-    Set<EdgeNode<E>> incomingEdges = new HashSet<>();
-    //add only the incoming edges to the new Set to be returned as incoming iterable
-    for (EdgeNode<E> edge : incidentEdges) {
-      if (edge.to.equals(v)) {
-        incomingEdges.add(edge);
-      }
-    }
-    return Collections.unmodifiableSet(incomingEdges);
+    //read-only view of the incoming edges, no copy is made
+    return vertexNode.inView;
   }
 
   @Override
@@ -237,6 +354,7 @@ public class SparseGraph<V, E> implements Graph<V, E> {
   public void label(Vertex<V> v, Object l) throws PositionException {
     VertexNode<V> vertexNode = validVertex(v);
     vertexNode.label = l;
+    vertexNode.labelEpoch = labelEpoch;
   }
 
   //LABEL AN EDGE
@@ -244,31 +362,55 @@ public class SparseGraph<V, E> implements Graph<V, E> {
   public void label(Edge<E> e, Object l) throws PositionException {
     EdgeNode<E> edgeNode = validEdge(e);
     edgeNode.label = l;
+    edgeNode.labelEpoch = labelEpoch;
   }
 
   //RETURN VERTEX LABEL
   @Override
   public Object label(Vertex<V> v) throws PositionException {
     VertexNode<V> vertexNode = validVertex(v);
-    return vertexNode.label;
+    return vertexNode.labelEpoch == labelEpoch ? vertexNode.label : null;
   }
 
   //RETURN EDGE LABEL
   @Override
   public Object label(Edge<E> e) throws PositionException {
     EdgeNode<E> edgeNode = validEdge(e);
-    return edgeNode.label;
+    return edgeNode.labelEpoch == labelEpoch ? edgeNode.label : null;
   }
 
+  //SET EDGE WEIGHT
   @Override
-  public void clearLabels() {
-    for (Vertex<V> v : this.vertices()) {
-      VertexNode<V> vertexNode = convert(v);
-      vertexNode.label = null;
+  public void weight(Edge<E> e, double w) throws PositionException {
+    EdgeNode<E> edgeNode = validEdge(e);
+    double oldWeight = edgeNode.weight;
+    edgeNode.weight = w;
+    for (GraphListener<V, E> listener : listeners) {
+      listener.weightChanged(edgeNode,oldWeight);
     }
-    for (Edge<E> e : this.edges()) {
-      EdgeNode<E> edgeNode = convert(e);
-      edgeNode.label = null;
+  }
+
+  //RETURN EDGE WEIGHT
+  @Override
+  public double weight(Edge<E> e) throws PositionException {
+    EdgeNode<E> edgeNode = validEdge(e);
+    return edgeNode.weight;
+  }
+
+  @Override
+  public void clearLabels() {
+    labelEpoch++;
+    //after 2^32 clears an epoch comes round again, so really clear everything once
+    //to keep labels from that long ago from coming back
+    if (labelEpoch == 0) {
+      for (Vertex<V> v : this.vertices()) {
+        VertexNode<V> vertexNode = convert(v);
+        vertexNode.label = null;
+      }
+      for (Edge<E> e : this.edges()) {
+        EdgeNode<E> edgeNode = convert(e);
+        edgeNode.label = null;
+      }
     }
   }
 
@@ -278,60 +420,197 @@ public class SparseGraph<V, E> implements Graph<V, E> {
     return gp.toString();
   }
 
-  //Private class for a vertex of type V
+  //Private read-only view of the vertices in id order, skipping the ids of removed vertices
+  private final class VertexView extends AbstractCollection<Vertex<V>> {
+    @Override
+    public Iterator<Vertex<V>> iterator() {
+      return new Iterator<>() {
+        //id of the next vertex to return, vertexList.size() once there are none left
+        private int next = skip(0);
+        private final int expectedModCount = vertexModCount;
+
+        private int skip(int id) {
+          while (id < vertexList.size() && vertexList.get(id) == null) {
+            id++;
+          }
+          return id;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < vertexList.size();
+        }
+
+        @Override
+        public Vertex<V> next() {
+          if (vertexModCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+          }
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Vertex<V> v = vertexList.get(next);
+          next = skip(next + 1);
+          return v;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return numVertices;
+    }
+  }
+
+  //Private read-only view of the edges, walking the outgoing lists in vertex id order
+  private final class EdgeView extends AbstractCollection<Edge<E>> {
+    @Override
+    public Iterator<Edge<E>> iterator() {
+      return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Edge<E>> spliterator() {
+      return new EdgeSpliterator(0,vertexList.size(),numEdges,edgeModCount);
+    }
+
+    @Override
+    public int size() {
+      return numEdges;
+    }
+  }
+
+  //Private spliterator over the outgoing edges of the vertices with ids in [vertex, end),
+  //split in halves by id range for parallel traversal
+  private final class EdgeSpliterator implements Spliterator<Edge<E>> {
+    //vertex whose outgoing edges are being walked and the next of its edges
+    private int vertex;
+    private int edge;
+    private int end;
+    private long estimate;
+    private final int expectedModCount;
+
+    EdgeSpliterator(int vertex, int end, long estimate, int expectedModCount) {
+      this.vertex = vertex;
+      this.edge = 0;
+      this.end = end;
+      this.estimate = estimate;
+      this.expectedModCount = expectedModCount;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Edge<E>> action) {
+      checkForChanges();
+      while (vertex < end) {
+        VertexNode<V> vertexNode = vertexList.get(vertex);
+        if (vertexNode != null && edge < vertexNode.outEdges.size()) {
+          action.accept(vertexNode.outEdges.get(edge++));
+          return true;
+        }
+        vertex++;
+        edge = 0;
+      }
+      return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Edge<E>> action) {
+      checkForChanges();
+      for (; vertex < end; vertex++, edge = 0) {
+        VertexNode<V> vertexNode = vertexList.get(vertex);
+        if (vertexNode == null) {
+          continue;
+        }
+        ArrayList<EdgeNode<E>> out = vertexNode.outEdges;
+        for (; edge < out.size(); edge++) {
+          action.accept(out.get(edge));
+        }
+      }
+      checkForChanges();
+    }
+
+    @Override
+    public Spliterator<Edge<E>> trySplit() {
+      //hand off the upper half of the vertices not yet started
+      int mid = (vertex + 1 + end) >>> 1;
+      if (mid <= vertex + 1 || mid >= end) {
+        return null;
+      }
+      long half = estimate / 2;
+      EdgeSpliterator upper = new EdgeSpliterator(mid,end,half,expectedModCount);
+      end = mid;
+      estimate -= half;
+      return upper;
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | DISTINCT | NONNULL;
+    }
+
+    private void checkForChanges() {
+      if (edgeModCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  //Private class for a vertex of type V, equal only to itself
   private final class VertexNode<V> implements Vertex<V> {
     V data;
+    //index of this vertex in vertexList
+    final int id;
     Graph<V, E> owner;
     Object label;
-    int degree;
+    //epoch label was set in
+    int labelEpoch;
+    //edges leaving and entering this vertex, plus read-only views of them
+    ArrayList<EdgeNode<E>> outEdges;
+    ArrayList<EdgeNode<E>> inEdges;
+    List<Edge<E>> outView;
+    List<Edge<E>> inView;
 
     /**
      * Constructor to create new VertexNode object.
      * @param v the data to be held at this vertex
+     * @param id the id of this vertex in its graph
      * @param owner the Graph object that this vertex belongs to
      */
-    VertexNode(V v, Graph<V,E> owner) {
+    VertexNode(V v, int id, Graph<V,E> owner) {
       this.data = v;
+      this.id = id;
       this.label = null;
       this.owner = owner;
-      this.degree = 0;
+      this.outEdges = new ArrayList<>(4);
+      this.inEdges = new ArrayList<>(4);
+      this.outView = Collections.unmodifiableList(outEdges);
+      this.inView = Collections.unmodifiableList(inEdges);
     }
 
     @Override
     public V get() {
       return this.data;
     }
-
-    @Override
-    public int hashCode() {
-      return hash(data, owner);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      if (this == other) {
-        return true;
-      }
-      if (other == null || this.getClass() != other.getClass()) {
-        return false;
-      }
-
-      VertexNode<V> otherCast = (VertexNode<V>) other;
-      //two vertex objects are equal so long as they belong to the same Graph and contain the same data
-      if (this.owner != otherCast.owner) {
-        return false;
-      }
-      return this.data == otherCast.data;
-    }
   }
 
-  //Private class for an edge of type E
+  //Private class for an edge of type E, equal only to itself
   private final class EdgeNode<E> implements Edge<E> {
     E data;
     Graph<V, E> owner;
     VertexNode<V> from;
     VertexNode<V> to;
+    //positions of this edge in from.outEdges and to.inEdges
+    int outIndex;
+    int inIndex;
     Object label;
+    //epoch label was set in
+    int labelEpoch;
+    double weight;
 
     /**
      * Constructor to create a new EdgeNode object.
@@ -352,27 +631,5 @@ public class SparseGraph<V, E> implements Graph<V, E> {
     public E get() {
       return this.data;
     }
-
-    @Override
-    public int hashCode() {
-      return hash(from) - hash(to);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      if (this == other) {
-        return true;
-      }
-      if (other == null || this.getClass() != other.getClass()) {
-        return false;
-      }
-
-      EdgeNode<E> otherCast = (EdgeNode<E>) other;
-      //two edges are equal so long as they belong to the same Graph and have the same origin and destination vertices
-      if (this.owner != otherCast.owner) {
-        return false;
-      }
-      return this.from == otherCast.from && this.to == otherCast.to;
-    }
   }
 }
@@ -0,0 +1,49 @@
+package hw8.graph;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+
+/**
+ * Graph ADT extended with a primitive double weight on every edge.
+ *
+ * <p>Weights are stored apart from labels: they start at 0, are not boxed,
+ * and are not reset by clearLabels().</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public interface WeightedGraph<V, E> extends Graph<V, E> {
+
+  /**
+   * Insert a new edge with its weight, so that it is never seen with weight 0.
+   *
+   * @param from Vertex position where edge starts.
+   * @param to   Vertex position where edge ends.
+   * @param e    Element to insert.
+   * @param w    Weight of the edge.
+   * @return Edge position created to hold element.
+   * @throws PositionException  If either vertex position is invalid.
+   * @throws InsertionException If insertion would create a self-loop or
+   *                            duplicate edge.
+   */
+  Edge<E> insert(Vertex<V> from, Vertex<V> to, E e, double w)
+      throws PositionException, InsertionException;
+
+  /**
+   * Set the weight of an edge.
+   *
+   * @param e Edge position to weigh.
+   * @param w Weight of the edge.
+   * @throws PositionException If edge position is invalid.
+   */
+  void weight(Edge<E> e, double w) throws PositionException;
+
+  /**
+   * Edge weight.
+   *
+   * @param e Edge position to query.
+   * @return Weight of the edge (0 if never set).
+   * @throws PositionException If edge position is invalid.
+   */
+  double weight(Edge<E> e) throws PositionException;
+}
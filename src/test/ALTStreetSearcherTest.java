@@ -0,0 +1,59 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.ALTStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.Landmarks;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ALTStreetSearcherTest {
+
+  private List<String> endpoints;
+  private File file;
+  private StreetSearcher dijkstra;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(7, 6, 5);
+    endpoints = TestNetworks.endpoints(roads);
+    file = TestNetworks.write(roads);
+    dijkstra = new DijkstraStreetSearcher(new SparseGraph<>());
+    dijkstra.loadNetwork(file);
+  }
+
+  @Test
+  @DisplayName("finds the same paths as Dijkstra with landmarks picked by either selection")
+  public void matchesDijkstra() throws IOException {
+    for (Landmarks.Selection selection : Landmarks.Selection.values()) {
+      StreetSearcher alt = new ALTStreetSearcher(new SparseGraph<>(), 4, selection);
+      alt.loadNetwork(file);
+      TestNetworks.assertSamePaths(dijkstra, alt, endpoints, endpoints);
+    }
+  }
+
+  @Test
+  @DisplayName("more landmarks than vertices are capped and none at all is plain Dijkstra")
+  public void landmarkCounts() throws IOException {
+    for (int count : new int[] {0, 1000}) {
+      StreetSearcher alt = new ALTStreetSearcher(new SparseGraph<>(), count, Landmarks.Selection.FARTHEST);
+      alt.loadNetwork(file);
+      TestNetworks.assertSamePaths(dijkstra, alt, endpoints, endpoints.subList(0, 5));
+    }
+  }
+
+  @Test
+  @DisplayName("a negative number of landmarks is rejected")
+  public void negativeLandmarkCount() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ALTStreetSearcher(new SparseGraph<>(), -1, Landmarks.Selection.FARTHEST));
+  }
+}
@@ -0,0 +1,78 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.AStarStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AStarStreetSearcherTest {
+
+  private List<String> roads;
+
+  @BeforeEach
+  public void setupNetwork() {
+    StreetSearcher.VERBOSE = false;
+    roads = TestNetworks.grid(7, 6, 11);
+  }
+
+  // Load the same roads into Dijkstra and A* and compare them on every pair
+  private void assertMatchesDijkstra(List<String> lines) throws IOException {
+    File file = TestNetworks.write(lines);
+    StreetSearcher dijkstra = new DijkstraStreetSearcher(new SparseGraph<>());
+    dijkstra.loadNetwork(file);
+    StreetSearcher astar = new AStarStreetSearcher(new SparseGraph<>());
+    astar.loadNetwork(file);
+    List<String> endpoints = TestNetworks.endpoints(lines);
+    TestNetworks.assertSamePaths(dijkstra, astar, endpoints, endpoints);
+  }
+
+  @Test
+  @DisplayName("finds the same paths as Dijkstra when endpoint names are coordinates")
+  public void matchesDijkstra() throws IOException {
+    assertMatchesDijkstra(roads);
+  }
+
+  @Test
+  @DisplayName("falls back to Dijkstra when endpoint names are not coordinates")
+  public void matchesDijkstraWithoutCoordinates() throws IOException {
+    List<String> renamed = new ArrayList<>();
+    for (String road : roads) {
+      renamed.add(road.replaceFirst("^(-?\\d+),(-?\\d+) (-?\\d+),(-?\\d+)", "p$1_$2 p$3_$4"));
+    }
+    assertMatchesDijkstra(renamed);
+  }
+
+  @Test
+  @DisplayName("a query that fails halfway leaves nothing behind for the next query of the thread")
+  public void failedQueryIsReset() throws IOException {
+    File file = TestNetworks.write(roads);
+    StreetSearcher dijkstra = new DijkstraStreetSearcher(new SparseGraph<>());
+    dijkstra.loadNetwork(file);
+    //the heuristic throws once, with the search well under way
+    int[] calls = {0};
+    StreetSearcher astar = new AStarStreetSearcher(new SparseGraph<>()) {
+      @Override
+      protected double heuristic(int u, int end) {
+        if (++calls[0] == 20) {
+          throw new IllegalStateException("heuristic failed");
+        }
+        return super.heuristic(u, end);
+      }
+    };
+    astar.loadNetwork(file);
+    assertThrows(IllegalStateException.class, () -> astar.findShortestPath("6,5", "0,0"));
+    //a long query first, a trivial one would reset the leftovers before they do harm
+    TestNetworks.assertSamePaths(dijkstra, astar, List.of("0,0"), List.of("6,5"));
+    List<String> endpoints = TestNetworks.endpoints(roads);
+    TestNetworks.assertSamePaths(dijkstra, astar, endpoints, endpoints);
+  }
+}
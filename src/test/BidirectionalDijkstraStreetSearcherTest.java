@@ -0,0 +1,60 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.BidirectionalDijkstraStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BidirectionalDijkstraStreetSearcherTest {
+
+  private List<String> endpoints;
+  private StreetSearcher dijkstra;
+  private StreetSearcher bidirectional;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(6, 5, 7);
+    endpoints = TestNetworks.endpoints(roads);
+    File file = TestNetworks.write(roads);
+    dijkstra = new DijkstraStreetSearcher(new SparseGraph<>());
+    dijkstra.loadNetwork(file);
+    bidirectional = new BidirectionalDijkstraStreetSearcher(new SparseGraph<>());
+    bidirectional.loadNetwork(file);
+  }
+
+  @Test
+  @DisplayName("finds the same paths as Dijkstra between every pair of endpoints")
+  public void matchesDijkstra() {
+    TestNetworks.assertSamePaths(dijkstra, bidirectional, endpoints, endpoints);
+  }
+
+  @Test
+  @DisplayName("a trip from an endpoint to itself is empty and an island cannot be reached")
+  public void emptyTripAndUnreachableEnd() {
+    PathResult self = bidirectional.findShortestPath("2,2", "2,2");
+    assertTrue(self.found());
+    assertEquals(0, self.totalDistance(), 0);
+    assertEquals(0, self.size());
+    assertFalse(bidirectional.findShortestPath("0,0", "100,100").found());
+    assertFalse(bidirectional.findShortestPath("101,100", "3,3").found());
+  }
+
+  @Test
+  @DisplayName("of two roads between the same endpoints the one read first is kept")
+  public void parallelRoads() {
+    PathResult path = bidirectional.findShortestPath("0,0", "1,0");
+    assertEquals(List.of("Road0_0_1_0"), path.roads());
+    assertEquals(dijkstra.findShortestPath("0,0", "1,0").totalDistance(), path.totalDistance(), 0);
+    assertTrue(path.totalDistance() >= 100);
+  }
+}
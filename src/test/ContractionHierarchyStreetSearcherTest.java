@@ -0,0 +1,114 @@
+package hw8;
+
+import hw8.graph.Edge;
+import hw8.graph.SparseGraph;
+import hw8.spp.ContractionHierarchyStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContractionHierarchyStreetSearcherTest {
+
+  private List<String> endpoints;
+  private SparseGraph<String, String> dijkstraGraph;
+  private SparseGraph<String, String> chGraph;
+  private StreetSearcher dijkstra;
+  private ContractionHierarchyStreetSearcher ch;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(7, 7, 3);
+    endpoints = TestNetworks.endpoints(roads);
+    File file = TestNetworks.write(roads);
+    dijkstraGraph = new SparseGraph<>();
+    dijkstra = new DijkstraStreetSearcher(dijkstraGraph);
+    dijkstra.loadNetwork(file);
+    chGraph = new SparseGraph<>();
+    ch = new ContractionHierarchyStreetSearcher(chGraph);
+    ch.loadNetwork(file);
+  }
+
+  // Set the length of both directions of a road
+  private static void lengthen(SparseGraph<String, String> graph, String road, double length) {
+    for (Edge<String> e : graph.edges()) {
+      if (e.get().equals(road)) {
+        graph.weight(e, length);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("finds the same paths as Dijkstra between every pair of endpoints")
+  public void matchesDijkstra() {
+    TestNetworks.assertSamePaths(dijkstra, ch, endpoints, endpoints);
+  }
+
+  @Test
+  @DisplayName("distance matrix matches Dijkstra, on the calling pool and on a given executor")
+  public void distanceMatrixMatchesDijkstra() {
+    List<String> origins = endpoints.subList(0, 20);
+    List<String> destinations = endpoints.subList(10, endpoints.size());
+    double[] expected = dijkstra.distanceMatrix(origins, destinations);
+    assertArrayEquals(expected, ch.distanceMatrix(origins, destinations), 1e-6);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      assertArrayEquals(expected, ch.distanceMatrix(origins, destinations, executor), 1e-6);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("a saved hierarchy answers queries without loading the network")
+  public void saveAndLoadHierarchy() throws IOException {
+    File file = File.createTempFile("hierarchy", ".ch");
+    file.deleteOnExit();
+    ch.saveHierarchy(file);
+    ContractionHierarchyStreetSearcher loaded = new ContractionHierarchyStreetSearcher(new SparseGraph<>());
+    loaded.loadHierarchy(file);
+    TestNetworks.assertSamePaths(dijkstra, loaded, endpoints, endpoints);
+  }
+
+  @Test
+  @DisplayName("a road changed after a query is seen by the next one")
+  public void rebuildsAfterNetworkChange() {
+    PathResult before = ch.findShortestPath("0,0", "6,6");
+    String road = before.road(0);
+    lengthen(chGraph, road, 10000);
+    lengthen(dijkstraGraph, road, 10000);
+
+    PathResult after = ch.findShortestPath("0,0", "6,6");
+    assertTrue(after.totalDistance() > before.totalDistance());
+    assertFalse(after.roads().contains(road));
+    TestNetworks.assertSamePaths(dijkstra, ch, endpoints, endpoints);
+  }
+
+  @Test
+  @DisplayName("loading a network drops a hierarchy read by loadHierarchy")
+  public void loadNetworkDropsLoadedHierarchy() throws IOException {
+    File file = File.createTempFile("hierarchy", ".ch");
+    file.deleteOnExit();
+    ch.saveHierarchy(file);
+    ContractionHierarchyStreetSearcher loaded = new ContractionHierarchyStreetSearcher(new SparseGraph<>());
+    loaded.loadHierarchy(file);
+
+    List<String> roads = TestNetworks.grid(5, 5, 8);
+    File network = TestNetworks.write(roads);
+    loaded.loadNetwork(network);
+    StreetSearcher expected = new DijkstraStreetSearcher(new SparseGraph<>());
+    expected.loadNetwork(network);
+    List<String> names = TestNetworks.endpoints(roads);
+    TestNetworks.assertSamePaths(expected, loaded, names, names);
+  }
+}
@@ -0,0 +1,175 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.CsrGraphFile;
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsrGraphTest {
+
+  private Graph<String, String> graph;
+  private CsrGraph<String, String> csr;
+
+  @BeforeEach
+  public void setupGraph() {
+    graph = new SparseGraph<>();
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Vertex<String> v3 = graph.insert("v3");
+    graph.insert("v4");
+    Edge<String> e1 = graph.insert(v1, v2, "v1-v2");
+    Edge<String> e2 = graph.insert(v1, v3, "v1-v3");
+    Edge<String> e3 = graph.insert(v3, v2, "v3-v2");
+    graph.label(e1, 1.5);
+    graph.label(e2, 2.0);
+    graph.label(e3, 4.25);
+    csr = new CsrGraph<>(graph);
+  }
+
+  @Test
+  @DisplayName("snapshot has the same number of vertices and edges")
+  public void snapshotCounts() {
+    assertEquals(4, csr.numVertices());
+    assertEquals(3, csr.numEdges());
+  }
+
+  @Test
+  @DisplayName("vertex ids map back to the vertex data")
+  public void vertexIdsRoundTrip() {
+    for (String name : new String[] {"v1", "v2", "v3", "v4"}) {
+      assertEquals(name, csr.vertex(csr.id(name)));
+    }
+    assertEquals(-1, csr.id("v5"));
+  }
+
+  @Test
+  @DisplayName("outgoing edge ranges hold targets, weights and data of the edges")
+  public void outgoingEdges() {
+    int v1 = csr.id("v1");
+    assertEquals(2, csr.outEnd(v1) - csr.outStart(v1));
+    double total = 0;
+    for (int e = csr.outStart(v1); e < csr.outEnd(v1); e++) {
+      assertEquals(v1, csr.source(e));
+      assertEquals("v1-" + csr.vertex(csr.target(e)), csr.edge(e));
+      total += csr.weight(e);
+    }
+    assertEquals(3.5, total, 1e-9);
+    int v4 = csr.id("v4");
+    assertEquals(csr.outStart(v4), csr.outEnd(v4));
+  }
+
+  @Test
+  @DisplayName("incoming edge ranges hold every edge ending at the vertex")
+  public void incomingEdges() {
+    int v2 = csr.id("v2");
+    assertEquals(2, csr.inEnd(v2) - csr.inStart(v2));
+    for (int i = csr.inStart(v2); i < csr.inEnd(v2); i++) {
+      int e = csr.inEdge(i);
+      assertEquals(v2, csr.target(e));
+      assertEquals(csr.vertex(csr.source(e)) + "-v2", csr.edge(e));
+    }
+    int v1 = csr.id("v1");
+    assertEquals(csr.inStart(v1), csr.inEnd(v1));
+  }
+
+  @Test
+  @DisplayName("snapshot is not affected by later changes to the graph")
+  public void snapshotIsImmutable() {
+    Vertex<String> v5 = graph.insert("v5");
+    for (Vertex<String> v : graph.vertices()) {
+      if (v.get().equals("v1")) {
+        graph.insert(v, v5, "v1-v5");
+      }
+    }
+    assertEquals(4, csr.numVertices());
+    assertEquals(3, csr.numEdges());
+  }
+
+  @Test
+  @DisplayName("binary file round trip keeps vertices, edges, weights and road names")
+  public void binaryFileRoundTrip() throws IOException {
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(csr, file);
+    CsrGraph<String, String> read = CsrGraphFile.read(file);
+    assertEquals(csr.numVertices(), read.numVertices());
+    assertEquals(csr.numEdges(), read.numEdges());
+    for (int u = 0; u < csr.numVertices(); u++) {
+      assertEquals(csr.vertex(u), read.vertex(u));
+      assertEquals(csr.outStart(u), read.outStart(u));
+      assertEquals(csr.outEnd(u), read.outEnd(u));
+      assertEquals(csr.inEnd(u) - csr.inStart(u), read.inEnd(u) - read.inStart(u));
+    }
+    for (int e = 0; e < csr.numEdges(); e++) {
+      assertEquals(csr.source(e), read.source(e));
+      assertEquals(csr.target(e), read.target(e));
+      assertEquals(csr.weight(e), read.weight(e));
+      assertEquals(csr.edge(e), read.edge(e));
+    }
+  }
+
+  @Test
+  @DisplayName("corrupt header counts and truncated files fail with an IOException")
+  public void corruptBinaryFile() throws IOException {
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(csr, file);
+    long length = file.length();
+    //n is the int at byte 8, m the one at byte 12, both little-endian
+    for (int[] patch : new int[][] {{8, -1}, {12, Integer.MAX_VALUE}, {12, -5}}) {
+      CsrGraphFile.write(csr, file);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.seek(patch[0]);
+        raf.writeInt(Integer.reverseBytes(patch[1]));
+      }
+      assertThrows(IOException.class, () -> CsrGraphFile.read(file));
+    }
+    CsrGraphFile.write(csr, file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length - 3);
+    }
+    assertThrows(IOException.class, () -> CsrGraphFile.read(file));
+  }
+
+  @Test
+  @DisplayName("a road without a name is rejected before the file is touched")
+  public void nullRoadName() throws IOException {
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(csr, file);
+    long length = file.length();
+    Edge<String> unnamed = graph.insert(graph.vertices().iterator().next(), graph.insert("v5"), null);
+    graph.label(unnamed, 1.0);
+    CsrGraph<String, String> withUnnamed = new CsrGraph<>(graph);
+    assertThrows(IllegalArgumentException.class, () -> CsrGraphFile.write(withUnnamed, file));
+    assertEquals(length, file.length());
+    assertEquals(4, CsrGraphFile.read(file).numVertices());
+  }
+
+  @Test
+  @DisplayName("a file naming two vertices the same fails with an IOException")
+  public void duplicateVertexNames() throws IOException {
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(csr, file);
+    //4 vertices and 3 edges put the two byte names right after the vertex name lengths
+    long names = 24 + 3 * 8 + 5 * 4 + 3 * 4 + 3 * 4 + 4 * 4;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(names + 1);
+      byte first = raf.readByte();
+      raf.seek(names + 3);
+      raf.writeByte(first);
+    }
+    assertThrows(IOException.class, () -> CsrGraphFile.read(file));
+  }
+}
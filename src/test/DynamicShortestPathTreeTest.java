@@ -0,0 +1,121 @@
+package hw8;
+
+import hw8.graph.Edge;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import hw8.spp.DynamicShortestPathTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicShortestPathTreeTest {
+
+  private SparseGraph<String, String> graph;
+  private List<Vertex<String>> vertices;
+  private List<Edge<String>> edges;
+  private Random random;
+
+  @BeforeEach
+  public void setupGraph() {
+    graph = new SparseGraph<>();
+    vertices = new ArrayList<>();
+    edges = new ArrayList<>();
+    random = new Random(42);
+    for (int i = 0; i < 60; i++) {
+      vertices.add(graph.insert("v" + i));
+    }
+    for (int i = 0; i < 240; i++) {
+      insertRandomEdge();
+    }
+  }
+
+  private void insertRandomEdge() {
+    Vertex<String> from = vertices.get(random.nextInt(vertices.size()));
+    Vertex<String> to = vertices.get(random.nextInt(vertices.size()));
+    try {
+      Edge<String> e = graph.insert(from, to, from.get() + "-" + to.get());
+      graph.weight(e, 1 + random.nextInt(20));
+      edges.add(e);
+    } catch (RuntimeException ex) {
+      //self-loop or duplicate, skip it
+    }
+  }
+
+  // Check every distance and predecessor against a tree computed from scratch
+  private void assertMatchesFreshTree(DynamicShortestPathTree<String, String> tree) {
+    DynamicShortestPathTree<String, String> fresh = new DynamicShortestPathTree<>(graph, tree.source());
+    fresh.close();
+    for (Vertex<String> v : vertices) {
+      assertEquals(fresh.distance(v), tree.distance(v), 1e-9);
+      Edge<String> road = tree.predecessor(v);
+      if (road != null) {
+        assertEquals(tree.distance(v), tree.distance(graph.from(road)) + graph.weight(road), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("tree stays equal to a fresh one through weight changes, inserts and removals")
+  public void repairsMatchRecomputation() {
+    DynamicShortestPathTree<String, String> tree = new DynamicShortestPathTree<>(graph, vertices.get(0));
+    for (int step = 0; step < 300; step++) {
+      int op = random.nextInt(4);
+      if (op == 0 && !edges.isEmpty()) {
+        graph.remove(edges.remove(random.nextInt(edges.size())));
+      } else if (op == 1) {
+        insertRandomEdge();
+      } else if (!edges.isEmpty()) {
+        graph.weight(edges.get(random.nextInt(edges.size())), random.nextInt(30));
+      }
+      assertMatchesFreshTree(tree);
+    }
+  }
+
+  @Test
+  @DisplayName("path(end) follows the tree from the source and is null when end is cut off")
+  public void pathFollowsTree() {
+    Vertex<String> a = graph.insert("a");
+    Vertex<String> b = graph.insert("b");
+    Vertex<String> c = graph.insert("c");
+    Edge<String> ab = graph.insert(a, b, "a-b");
+    Edge<String> bc = graph.insert(b, c, "b-c");
+    graph.weight(ab, 2);
+    graph.weight(bc, 3);
+    DynamicShortestPathTree<String, String> tree = new DynamicShortestPathTree<>(graph, a);
+    assertEquals(List.of(ab, bc), tree.path(c));
+    assertEquals(5, tree.distance(c), 0);
+    assertTrue(tree.path(a).isEmpty());
+    graph.remove(bc);
+    assertNull(tree.path(c));
+    assertEquals(Double.POSITIVE_INFINITY, tree.distance(c), 0);
+  }
+
+  @Test
+  @DisplayName("an edge inserted with its weight is repaired once, and not at all if it is no shortcut")
+  public void weightedInsertRepairsOnce() {
+    Vertex<String> a = graph.insert("a");
+    Vertex<String> b = graph.insert("b");
+    Vertex<String> c = graph.insert("c");
+    Vertex<String> d = graph.insert("d");
+    Edge<String> bc = graph.insert(b, c, "b-c", 10);
+    graph.insert(a, b, "a-b", 10);
+    graph.insert(c, d, "c-d", 10);
+    DynamicShortestPathTree<String, String> tree = new DynamicShortestPathTree<>(graph, a);
+
+    //never seen with weight 0, so c keeps its tree edge and nothing is repaired
+    graph.insert(a, c, "a-c", 25);
+    assertEquals(0, tree.lastRepaired());
+    assertSame(bc, tree.predecessor(c));
+    assertEquals(20, tree.distance(c), 0);
+
+    Edge<String> ad = graph.insert(a, d, "a-d", 4);
+    assertEquals(1, tree.lastRepaired());
+    assertSame(ad, tree.predecessor(d));
+    assertEquals(4, tree.distance(d), 0);
+  }
+}
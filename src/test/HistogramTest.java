@@ -0,0 +1,100 @@
+package hw8;
+
+import hw8.spp.Histogram;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+  private Histogram histogram;
+
+  @BeforeEach
+  public void setupHistogram() {
+    histogram = new Histogram();
+  }
+
+  @Test
+  @DisplayName("an empty histogram reports 0 for everything, also after reset")
+  public void empty() {
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.mean(), 0);
+    assertEquals(0, histogram.max());
+    assertEquals(0, histogram.percentile(0.5));
+    assertEquals(0, histogram.percentile(0.99));
+
+    histogram.record(12345);
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.mean(), 0);
+    assertEquals(0, histogram.max());
+    assertEquals(0, histogram.percentile(0.99));
+  }
+
+  @Test
+  @DisplayName("values below 16 have a bucket each")
+  public void linearBuckets() {
+    for (int v = 0; v < 16; v++) {
+      histogram.record(v);
+    }
+    for (int v = 0; v < 16; v++) {
+      assertEquals(v, histogram.percentile((v + 1) / 16.0));
+    }
+    assertEquals(0, histogram.percentile(0));
+    assertEquals(7.5, histogram.mean(), 0);
+  }
+
+  @Test
+  @DisplayName("larger values share buckets an eighth of a power of two wide")
+  public void logLinearBuckets() {
+    //16 and 17 share the first bucket past the linear ones, 18 starts the next
+    histogram.record(16);
+    histogram.record(18);
+    histogram.record(100);
+    assertEquals(17, histogram.percentile(1.0 / 3));
+    assertEquals(19, histogram.percentile(2.0 / 3));
+    //a percentile never goes past the largest value recorded
+    assertEquals(100, histogram.percentile(1));
+
+    histogram.reset();
+    //buckets of 32 between 256 and 511, of 64 between 512 and 1023
+    for (int v = 1; v <= 1000; v++) {
+      histogram.record(v);
+    }
+    assertEquals(511, histogram.percentile(0.5));
+    assertEquals(959, histogram.percentile(0.9));
+    assertEquals(1000, histogram.percentile(0.99));
+    assertEquals(1000, histogram.max());
+    assertEquals(500.5, histogram.mean(), 1e-9);
+  }
+
+  @Test
+  @DisplayName("percentiles are at most an eighth above the true value over the whole long range")
+  public void relativeError() {
+    Random random = new Random(4);
+    for (int i = 0; i < 200; i++) {
+      histogram.reset();
+      long value = random.nextLong() >>> (1 + random.nextInt(63));
+      histogram.record(value);
+      //one value, so the percentile is the upper end of its bucket capped at it
+      assertEquals(value, histogram.percentile(0.5));
+      histogram.record(Long.MAX_VALUE);
+      long p = histogram.percentile(0.5);
+      assertTrue(p >= value);
+      assertTrue(p - value <= value / 8);
+    }
+    assertEquals(Long.MAX_VALUE, histogram.percentile(1));
+  }
+
+  @Test
+  @DisplayName("negative values are recorded as 0")
+  public void negativeValues() {
+    histogram.record(-5);
+    assertEquals(1, histogram.count());
+    assertEquals(0, histogram.max());
+    assertEquals(0, histogram.percentile(1));
+  }
+}
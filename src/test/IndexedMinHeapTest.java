@@ -0,0 +1,135 @@
+package hw8;
+
+import hw8.spp.IndexedMinHeap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedMinHeapTest {
+
+  private IndexedMinHeap heap;
+  private Random random;
+  // reference heap of {key, id} entries, entries whose key is no longer current are skipped
+  private PriorityQueue<double[]> reference;
+  private Map<Integer, Double> current;
+
+  @BeforeEach
+  public void setupHeap() {
+    heap = new IndexedMinHeap();
+    random = new Random(7);
+    reference = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+    current = new HashMap<>();
+  }
+
+  private void referencePut(int id, double key) {
+    current.put(id, key);
+    reference.add(new double[] {key, id});
+  }
+
+  // Smallest current entry of the reference, dropping stale ones on the way
+  private double[] referencePeek() {
+    while (true) {
+      double[] top = reference.peek();
+      Double key = current.get((int) top[1]);
+      if (key != null && key == top[0]) {
+        return top;
+      }
+      reference.poll();
+    }
+  }
+
+  @Test
+  @DisplayName("random inserts, key changes and polls match a PriorityQueue")
+  public void matchesPriorityQueue() {
+    long operations = 0;
+    int maxSize = 0;
+    for (int step = 0; step < 20000; step++) {
+      int op = random.nextInt(10);
+      //mostly small ids, some far beyond the initial capacity
+      int id = random.nextInt(20) == 0 ? random.nextInt(5000) : random.nextInt(200);
+      double key = random.nextDouble() * 1000;
+      if (op < 4) {
+        Double old = current.get(id);
+        boolean changes = old == null || key < old;
+        assertEquals(changes, heap.insertOrDecrease(id, key));
+        if (changes) {
+          referencePut(id, key);
+          operations++;
+        }
+      } else if (op < 6) {
+        Double old = current.get(id);
+        heap.update(id, key);
+        if (old == null || key != old) {
+          referencePut(id, key);
+          operations++;
+        }
+      } else if (!current.isEmpty()) {
+        double[] min = referencePeek();
+        assertEquals(min[0], heap.minKey(), 0);
+        assertEquals((int) min[1], heap.poll());
+        current.remove((int) min[1]);
+        operations++;
+      }
+      maxSize = Math.max(maxSize, current.size());
+      assertEquals(current.size(), heap.size());
+      assertEquals(current.containsKey(id), heap.contains(id));
+      if (heap.contains(id)) {
+        assertEquals(current.get(id), heap.key(id), 0);
+      }
+    }
+    assertEquals(operations, heap.operations());
+    assertEquals(maxSize, heap.maxSize());
+
+    //drain what is left in order
+    double last = Double.NEGATIVE_INFINITY;
+    while (!heap.isEmpty()) {
+      double key = heap.minKey();
+      assertTrue(key >= last);
+      assertEquals((int) referencePeek()[1], heap.poll());
+      current.remove((int) reference.poll()[1]);
+      last = key;
+    }
+    assertTrue(current.isEmpty());
+  }
+
+  @Test
+  @DisplayName("clear empties the heap for reuse and keeps the counters until resetCounters")
+  public void clearAndReuse() {
+    for (int id = 0; id < 50; id++) {
+      heap.insertOrDecrease(id, 100 - id);
+    }
+    heap.poll();
+    assertEquals(51, heap.operations());
+    assertEquals(50, heap.maxSize());
+
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    for (int id = 0; id < 50; id++) {
+      assertFalse(heap.contains(id));
+    }
+    assertEquals(51, heap.operations());
+    assertEquals(50, heap.maxSize());
+
+    heap.resetCounters();
+    assertEquals(0, heap.operations());
+    assertEquals(0, heap.maxSize());
+    //ids from before the clear go in as new ones
+    assertTrue(heap.insertOrDecrease(3, 5));
+    assertTrue(heap.insertOrDecrease(40, 1));
+    assertTrue(heap.insertOrDecrease(7, 3));
+    assertFalse(heap.insertOrDecrease(7, 4));
+    heap.update(40, 10);
+    assertEquals(7, heap.poll());
+    assertEquals(3, heap.poll());
+    assertEquals(40, heap.poll());
+    assertTrue(heap.isEmpty());
+    assertEquals(7, heap.operations());
+    assertEquals(3, heap.maxSize());
+  }
+}
@@ -0,0 +1,95 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.NetworkGenerator;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkGeneratorTest {
+
+  @BeforeEach
+  public void setupVerbose() {
+    StreetSearcher.VERBOSE = false;
+  }
+
+  // Every road generated, as {from, to, distance, road}
+  private static List<String[]> generate(NetworkGenerator.Shape shape, long roads, long seed) {
+    List<String[]> lines = new ArrayList<>();
+    NetworkGenerator.generate(shape, roads, seed,
+        (from, to, distance, road) -> lines.add(new String[] {from, to, Double.toString(distance), road}));
+    return lines;
+  }
+
+  private static File write(NetworkGenerator.Shape shape, long roads, long seed) throws IOException {
+    File file = File.createTempFile("generated", ".txt");
+    file.deleteOnExit();
+    NetworkGenerator.write(shape, roads, seed, file);
+    return file;
+  }
+
+  @Test
+  @DisplayName("the same seed gives the same file, another seed a different one")
+  public void deterministic() throws IOException {
+    for (NetworkGenerator.Shape shape : NetworkGenerator.Shape.values()) {
+      byte[] first = Files.readAllBytes(write(shape, 5000, 3).toPath());
+      byte[] again = Files.readAllBytes(write(shape, 5000, 3).toPath());
+      byte[] other = Files.readAllBytes(write(shape, 5000, 4).toPath());
+      assertTrue(Arrays.equals(first, again));
+      assertFalse(Arrays.equals(first, other));
+    }
+  }
+
+  @Test
+  @DisplayName("never more roads than asked for, exactly as many from a few dozen up")
+  public void roadCount() {
+    for (NetworkGenerator.Shape shape : NetworkGenerator.Shape.values()) {
+      for (long roads : new long[] {0, 1, 2, 3, 5, 10, 20}) {
+        int count = generate(shape, roads, 8).size();
+        assertTrue(count <= roads);
+        assertTrue(count >= roads / 2);
+      }
+      for (long roads : new long[] {50, 1000, 30000}) {
+        assertEquals(roads, generate(shape, roads, 8).size());
+      }
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> NetworkGenerator.generate(NetworkGenerator.Shape.GRID, -1, 8, (from, to, distance, road) -> { }));
+  }
+
+  @Test
+  @DisplayName("no road joins an endpoint to itself or two endpoints already joined")
+  public void noSelfLoopsOrRepeatedRoads() {
+    for (NetworkGenerator.Shape shape : NetworkGenerator.Shape.values()) {
+      Set<String> pairs = new HashSet<>();
+      for (String[] road : generate(shape, 30000, 5)) {
+        assertFalse(road[0].equals(road[1]));
+        String pair = road[0].compareTo(road[1]) < 0 ? road[0] + " " + road[1] : road[1] + " " + road[0];
+        assertTrue(pairs.add(pair));
+        assertTrue(Double.parseDouble(road[2]) > 0);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("generated files load with every road in both directions")
+  public void loadsEveryRoad() throws IOException {
+    for (NetworkGenerator.Shape shape : NetworkGenerator.Shape.values()) {
+      StreetSearcher searcher = new DijkstraStreetSearcher(new SparseGraph<>());
+      searcher.loadNetwork(write(shape, 2000, 6));
+      assertEquals(4000, searcher.numLoaded);
+    }
+  }
+}
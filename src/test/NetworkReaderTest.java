@@ -0,0 +1,159 @@
+package hw8;
+
+import hw8.spp.NetworkReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkReaderTest {
+
+  private NetworkReader reader;
+  private List<String[]> roads;
+  private List<Double> distances;
+
+  @BeforeEach
+  public void setupReader() {
+    reader = new NetworkReader();
+    roads = new ArrayList<>();
+    distances = new ArrayList<>();
+  }
+
+  // Read text written as UTF-8 exactly as given, keeping every road in roads and distances
+  private void read(String text) throws IOException {
+    File file = File.createTempFile("network", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    reader.read(file, (from, to, distance, road) -> {
+      roads.add(new String[] {from, to, road});
+      distances.add(distance);
+    });
+  }
+
+  // Check that every number is read to exactly the double Double.parseDouble gives
+  private void assertParsedExactly(List<String> numbers) throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (String number : numbers) {
+      text.append("a b ").append(number).append(" r\n");
+    }
+    read(text.toString());
+    assertEquals(numbers.size(), distances.size());
+    for (int i = 0; i < numbers.size(); i++) {
+      assertEquals(Double.doubleToLongBits(Double.parseDouble(numbers.get(i))),
+          Double.doubleToLongBits(distances.get(i)));
+    }
+  }
+
+  @Test
+  @DisplayName("distances at the edges of the fast path parse exactly like Double.parseDouble")
+  public void boundaryDistances() throws IOException {
+    assertParsedExactly(List.of(
+        "0", "-0", "+0.0", "5", "+5", "-5", ".5", "5.", "-.5", "+5.",
+        "123456789012345", "1234567890123456", "12345678901234567",
+        "0.000000012345678901234", "9.999999999999999",
+        "0.1234567890123456789012", "0.12345678901234567890123",
+        "0.0000000000000000000001", "0.00000000000000000000001",
+        "000000000000000000000000012.5", "9007199254740993", "0.30000000000000004",
+        "1e5", "1E5", "1.5e-3", "-2.5E+10", "4.9e-324", "1.7976931348623157e308",
+        "5d", "0.1", "0.2", "0.3", "100.0000", "3.14159265358979"));
+  }
+
+  @Test
+  @DisplayName("random decimal distances parse exactly like Double.parseDouble")
+  public void randomDistances() throws IOException {
+    Random random = new Random(9);
+    List<String> numbers = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      StringBuilder number = new StringBuilder();
+      if (random.nextInt(4) == 0) {
+        number.append(random.nextBoolean() ? '-' : '+');
+      }
+      //up to 25 digits with the point anywhere among them, or left out
+      int digits = 1 + random.nextInt(25);
+      int point = random.nextInt(digits + 2);
+      for (int d = 0; d < digits; d++) {
+        if (d == point) {
+          number.append('.');
+        }
+        number.append((char) ('0' + random.nextInt(10)));
+      }
+      if (random.nextInt(8) == 0) {
+        number.append('e').append(random.nextInt(40) - 20);
+      }
+      numbers.add(number.toString());
+    }
+    for (int i = 0; i < 2000; i++) {
+      numbers.add(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 10)));
+    }
+    assertParsedExactly(numbers);
+  }
+
+  @Test
+  @DisplayName("CRLF, blank lines, runs of spaces and tabs and a last line without newline are read")
+  public void lineFormats() throws IOException {
+    read("a b 1.5 r1\r\n"
+        + "\r\n"
+        + "\n"
+        + "   \t \n"
+        + "b  \t c\t\t2.5   r2\n"
+        + "  c d 3.5 r3  \r\n"
+        + "d e 4.5 r5");
+    assertEquals(4, roads.size());
+    assertEquals(List.of("a", "b", "r1"), List.of(roads.get(0)));
+    assertEquals(List.of("b", "c", "r2"), List.of(roads.get(1)));
+    assertEquals(List.of("c", "d", "r3"), List.of(roads.get(2)));
+    assertEquals(List.of("d", "e", "r5"), List.of(roads.get(3)));
+    assertEquals(List.of(1.5, 2.5, 3.5, 4.5), distances);
+  }
+
+  @Test
+  @DisplayName("a line with fewer than four fields is rejected with its line number")
+  public void shortLine() {
+    IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+        () -> read("a b 1 r\n\nb c 2\n"));
+    assertEquals("Line 3 does not have 4 fields", ex.getMessage());
+  }
+
+  @Test
+  @DisplayName("UTF-8 names with multi-byte characters are decoded and interned")
+  public void multiByteNames() throws IOException {
+    read("Stra\u00dfe Caf\u00e9 1 \u6771\u4eac\u901a\u308a\nCaf\u00e9 Stra\u00dfe 2 \u6771\u4eac\u901a\u308a\n");
+    assertEquals(List.of("Stra\u00dfe", "Caf\u00e9", "\u6771\u4eac\u901a\u308a"), List.of(roads.get(0)));
+    assertSame(roads.get(0)[0], roads.get(1)[1]);
+    assertSame(roads.get(0)[1], roads.get(1)[0]);
+    assertSame(roads.get(0)[2], roads.get(1)[2]);
+  }
+
+  @Test
+  @DisplayName("equal names are one String instance, also after the intern table grows")
+  public void internsAcrossGrowth() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 6000; i++) {
+      text.append("p").append(i).append(" p").append(i + 1).append(" 1 road").append(i % 7).append('\n');
+    }
+    read(text.toString());
+    //and once more through the same reader, after the table has grown
+    read("p0 p5999 1 road0\n");
+
+    Map<String, String> first = new HashMap<>();
+    for (String[] road : roads) {
+      for (String name : road) {
+        String seen = first.putIfAbsent(name, name);
+        if (seen != null) {
+          assertSame(seen, name);
+        }
+      }
+    }
+    assertEquals(6001 + 7, first.size());
+  }
+}
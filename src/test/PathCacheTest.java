@@ -0,0 +1,109 @@
+package hw8;
+
+import hw8.graph.Edge;
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.PathCache;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.IOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathCacheTest {
+
+  private SparseGraph<String, String> graph;
+  private StreetSearcher searcher;
+  private PathResult path;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    graph = new SparseGraph<>();
+    searcher = new DijkstraStreetSearcher(graph);
+    searcher.loadNetwork(TestNetworks.write(TestNetworks.grid(4, 4, 5)));
+    path = searcher.findShortestPath("0,0", "3,3");
+  }
+
+  @Test
+  @DisplayName("get counts a miss until the answer is put, then hands it out as a hit")
+  public void hitsAndMisses() {
+    PathCache cache = new PathCache(8);
+    assertNull(cache.get("a", "b"));
+    cache.put("a", "b", path, cache.epoch());
+    assertSame(path, cache.get("a", "b"));
+    assertNull(cache.get("b", "a"));
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.misses());
+    assertEquals(1.0 / 3, cache.hitRate(), 1e-12);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  @DisplayName("a full cache evicts the least recently used answer")
+  public void evictsLeastRecentlyUsed() {
+    //small enough to be a single segment, so eviction is exact LRU
+    PathCache cache = new PathCache(3);
+    cache.put("a", "1", path, cache.epoch());
+    cache.put("a", "2", path, cache.epoch());
+    cache.put("a", "3", path, cache.epoch());
+    assertNotNull(cache.get("a", "1"));
+    cache.put("a", "4", path, cache.epoch());
+
+    assertEquals(1, cache.evictions());
+    assertEquals(3, cache.size());
+    assertNull(cache.get("a", "2"));
+    assertNotNull(cache.get("a", "1"));
+    assertNotNull(cache.get("a", "3"));
+    assertNotNull(cache.get("a", "4"));
+  }
+
+  @Test
+  @DisplayName("segments together never hold more than the capacity")
+  public void segmentedCapacity() {
+    PathCache cache = new PathCache(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.put("s" + i, "e" + i, path, cache.epoch());
+    }
+    assertTrue(cache.size() <= 100);
+    assertEquals(1000 - cache.size(), cache.evictions());
+  }
+
+  @Test
+  @DisplayName("invalidate hides older answers and drops answers searched before it")
+  public void invalidateStartsNewEpoch() {
+    PathCache cache = new PathCache(8);
+    long before = cache.epoch();
+    cache.put("a", "b", path, before);
+    cache.invalidate();
+    assertNull(cache.get("a", "b"));
+
+    cache.put("a", "c", path, before);
+    assertNull(cache.get("a", "c"));
+    cache.put("a", "c", path, cache.epoch());
+    assertSame(path, cache.get("a", "c"));
+  }
+
+  @Test
+  @DisplayName("changing a road of the network invalidates the answers of the searcher")
+  public void graphChangeInvalidates() {
+    searcher.setCacheCapacity(100);
+    PathResult first = searcher.findShortestPath("0,0", "3,3");
+    assertSame(first, searcher.findShortestPath("0,0", "3,3"));
+    assertEquals(1, searcher.cache().hits());
+
+    String road = first.road(0);
+    for (Edge<String> e : graph.edges()) {
+      if (e.get().equals(road)) {
+        graph.weight(e, 10000);
+      }
+    }
+    PathResult after = searcher.findShortestPath("0,0", "3,3");
+    assertEquals(1, searcher.cache().hits());
+    assertTrue(after.totalDistance() > first.totalDistance());
+    assertFalse(after.roads().contains(road));
+  }
+}
@@ -0,0 +1,102 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.ALTStreetSearcher;
+import hw8.spp.AStarStreetSearcher;
+import hw8.spp.BidirectionalDijkstraStreetSearcher;
+import hw8.spp.ContractionHierarchyStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathResultTest {
+
+  private List<StreetSearcher> searchers;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    File file = TestNetworks.write(List.of("a b 2.5 ab", "b c 1.25 bc", "d e 1 de"));
+    searchers = List.of(new DijkstraStreetSearcher(new SparseGraph<>()),
+        new BidirectionalDijkstraStreetSearcher(new SparseGraph<>()),
+        new AStarStreetSearcher(new SparseGraph<>()),
+        new ALTStreetSearcher(new SparseGraph<>()),
+        new ContractionHierarchyStreetSearcher(new SparseGraph<>()));
+    for (StreetSearcher searcher : searchers) {
+      searcher.loadNetwork(file);
+    }
+  }
+
+  private static String printed(PathResult path) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes, true);
+    path.print(out);
+    return bytes.toString();
+  }
+
+  @Test
+  @DisplayName("a path found lists its endpoints, roads and lengths and prints one line per road")
+  public void found() {
+    String expected = String.format(Locale.getDefault(Locale.Category.FORMAT),
+        "Total Distance: %.4f\n\t%6.2f \t%s\n\t%6.2f \t%s\n", 3.75, 2.5, "ab", 1.25, "bc");
+    for (StreetSearcher searcher : searchers) {
+      PathResult path = searcher.findShortestPath("a", "c");
+      assertTrue(path.found());
+      assertEquals(3.75, path.totalDistance(), 0);
+      assertEquals(2, path.size());
+      assertEquals(List.of("a", "b", "c"), path.vertices());
+      assertEquals(List.of("ab", "bc"), path.roads());
+      assertEquals("b", path.vertex(1));
+      assertEquals(2.5, path.length(0), 0);
+      assertEquals(1.25, path.length(1), 0);
+      assertEquals(expected, printed(path));
+    }
+  }
+
+  @Test
+  @DisplayName("an end that cannot be reached is not found, has no roads and prints No path found")
+  public void notFound() {
+    for (StreetSearcher searcher : searchers) {
+      PathResult path = searcher.findShortestPath("a", "d");
+      assertFalse(path.found());
+      assertEquals(Double.POSITIVE_INFINITY, path.totalDistance(), 0);
+      assertEquals(0, path.size());
+      assertTrue(path.roads().isEmpty());
+      assertTrue(path.vertices().isEmpty());
+      assertEquals("No path found" + System.lineSeparator(), printed(path));
+    }
+  }
+
+  @Test
+  @DisplayName("a trip from an endpoint to itself is found with length 0 and no roads")
+  public void sameEndpoint() {
+    for (StreetSearcher searcher : searchers) {
+      PathResult path = searcher.findShortestPath("b", "b");
+      assertTrue(path.found());
+      assertEquals(0, path.totalDistance(), 0);
+      assertEquals(0, path.size());
+      assertTrue(path.roads().isEmpty());
+      assertEquals(List.of("b"), path.vertices());
+      assertEquals("No path found" + System.lineSeparator(), printed(path));
+    }
+  }
+
+  @Test
+  @DisplayName("the lists of a path are read-only")
+  public void readOnlyLists() {
+    PathResult path = searchers.get(0).findShortestPath("a", "c");
+    assertThrows(UnsupportedOperationException.class, () -> path.roads().add("x"));
+    assertThrows(UnsupportedOperationException.class, () -> path.vertices().set(0, "x"));
+  }
+}
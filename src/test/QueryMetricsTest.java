@@ -0,0 +1,97 @@
+package hw8;
+
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.QueryMetrics;
+import hw8.spp.StreetSearcher;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryMetricsTest {
+
+  private StreetSearcher searcher;
+  private List<String> endpoints;
+  private List<Long> settled;
+  private List<Long> relaxed;
+  private List<Long> heapOperations;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(6, 6, 17);
+    endpoints = TestNetworks.endpoints(roads);
+    searcher = new DijkstraStreetSearcher(new SparseGraph<>());
+    searcher.loadNetwork(TestNetworks.write(roads));
+    settled = new ArrayList<>();
+    relaxed = new ArrayList<>();
+    heapOperations = new ArrayList<>();
+    //copy every query's stats before passing them on to the histograms
+    QueryMetrics metrics = searcher.metrics();
+    searcher.setQueryListener(stats -> {
+      settled.add((long) stats.settled());
+      relaxed.add(stats.relaxed());
+      heapOperations.add(stats.heapOperations());
+      metrics.queryFinished(stats);
+    });
+  }
+
+  private static double mean(List<Long> values) {
+    double sum = 0;
+    for (long v : values) {
+      sum += v;
+    }
+    return sum / values.size();
+  }
+
+  private static long max(List<Long> values) {
+    long max = 0;
+    for (long v : values) {
+      max = Math.max(max, v);
+    }
+    return max;
+  }
+
+  @Test
+  @DisplayName("histograms and the summary reflect the stats of every query")
+  public void summaryReflectsQueries() {
+    for (String end : endpoints) {
+      searcher.findShortestPath("0,0", end);
+    }
+    QueryMetrics metrics = searcher.metrics();
+    assertEquals(endpoints.size(), metrics.getQueries());
+    assertEquals(endpoints.size(), metrics.settled().count());
+    assertEquals(mean(settled), metrics.getSettledMean(), 1e-9);
+    assertEquals(max(settled), metrics.settled().max());
+    assertEquals(mean(relaxed), metrics.getRelaxedMean(), 1e-9);
+    assertEquals(mean(heapOperations), metrics.getHeapOperationsMean(), 1e-9);
+    assertTrue(metrics.getSettledP99() >= metrics.settled().percentile(0.5));
+    assertTrue(metrics.getSettledP99() <= max(settled));
+
+    String summary = metrics.getSummary();
+    String settledRow = String.format(Locale.ROOT, "%-16s %10d %12.1f", "settled", endpoints.size(),
+        mean(settled));
+    assertTrue(summary.contains(settledRow));
+    assertTrue(summary.contains(String.format(Locale.ROOT, "%12.1f\n", (double) max(settled))));
+    assertEquals(6, summary.split("\n").length);
+  }
+
+  @Test
+  @DisplayName("reset forgets every query")
+  public void resetForgetsQueries() {
+    searcher.findShortestPath("0,0", "5,5");
+    QueryMetrics metrics = searcher.metrics();
+    assertEquals(1, metrics.getQueries());
+    metrics.reset();
+    assertEquals(0, metrics.getQueries());
+    assertEquals(0, metrics.getSettledMean(), 0);
+    assertEquals(0, metrics.getQueueHighWaterMax());
+    assertTrue(metrics.getSummary().contains(String.format(Locale.ROOT, "%-16s %10d %12.1f", "settled", 0, 0.0)));
+  }
+}
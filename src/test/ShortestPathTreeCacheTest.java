@@ -0,0 +1,193 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Edge;
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.ShortestPathTree;
+import hw8.spp.ShortestPathTreeCache;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShortestPathTreeCacheTest {
+
+  private File network;
+  private List<String> endpoints;
+  private SparseGraph<String, String> graph;
+  private DijkstraStreetSearcher searcher;
+  private CsrGraph<String, String> snapshot;
+  private long treeBytes;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(4, 4, 21);
+    endpoints = TestNetworks.endpoints(roads);
+    network = TestNetworks.write(roads);
+    graph = new SparseGraph<>();
+    searcher = new DijkstraStreetSearcher(graph);
+    searcher.loadNetwork(network);
+    snapshot = tree("0,0").graph();
+    treeBytes = ShortestPathTreeCache.treeBytes(snapshot.numVertices());
+  }
+
+  private ShortestPathTree tree(String startName) {
+    return searcher.shortestPathTree(startName);
+  }
+
+  // Count lookups of a start until it is hot, checking nothing is cached for it yet
+  private void lookUp(ShortestPathTreeCache cache, String startName, int times) {
+    for (int i = 0; i < times; i++) {
+      assertNull(cache.get(startName, snapshot));
+    }
+  }
+
+  @Test
+  @DisplayName("a tree is only admitted once its start has been looked up twice")
+  public void admitsHotStartsOnly() {
+    ShortestPathTreeCache cache = new ShortestPathTreeCache(10 * treeBytes);
+    assertFalse(cache.admits("0,0", treeBytes));
+    lookUp(cache, "0,0", 1);
+    assertFalse(cache.admits("0,0", treeBytes));
+    cache.put("0,0", tree("0,0"));
+    assertEquals(0, cache.size());
+
+    lookUp(cache, "0,0", 1);
+    assertTrue(cache.admits("0,0", treeBytes));
+    ShortestPathTree tree = tree("0,0");
+    cache.put("0,0", tree);
+    assertSame(tree, cache.get("0,0", snapshot));
+    assertEquals(1, cache.size());
+    assertEquals(treeBytes, cache.bytes());
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.misses());
+  }
+
+  @Test
+  @DisplayName("the trees stay within the budget, evicting colder starts for hotter ones only")
+  public void evictsColderStartsWithinBudget() {
+    ShortestPathTreeCache cache = new ShortestPathTreeCache(2 * treeBytes);
+    assertFalse(cache.admits("0,0", 3 * treeBytes));
+    lookUp(cache, "0,0", 2);
+    lookUp(cache, "1,1", 2);
+    cache.put("0,0", tree("0,0"));
+    cache.put("1,1", tree("1,1"));
+    assertEquals(2, cache.size());
+    assertEquals(2 * treeBytes, cache.bytes());
+
+    //asked for as often as the cached starts, so it does not push them out
+    lookUp(cache, "2,2", 2);
+    assertFalse(cache.admits("2,2", treeBytes));
+    cache.put("2,2", tree("2,2"));
+    assertEquals(0, cache.evictions());
+
+    //hotter than both, one of them makes room
+    lookUp(cache, "2,2", 1);
+    ShortestPathTree hot = tree("2,2");
+    cache.put("2,2", hot);
+    assertEquals(1, cache.evictions());
+    assertEquals(2, cache.size());
+    assertEquals(2 * treeBytes, cache.bytes());
+    assertSame(hot, cache.get("2,2", snapshot));
+  }
+
+  @Test
+  @DisplayName("invalidate drops the trees but keeps how often each start was asked for")
+  public void invalidateKeepsCounts() {
+    ShortestPathTreeCache cache = new ShortestPathTreeCache(10 * treeBytes);
+    lookUp(cache, "0,0", 2);
+    cache.put("0,0", tree("0,0"));
+    cache.invalidate();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.bytes());
+    assertTrue(cache.admits("0,0", treeBytes));
+    assertNull(cache.get("0,0", snapshot));
+  }
+
+  @Test
+  @DisplayName("a tree computed on another snapshot is dropped when it is looked up")
+  public void dropsTreesOfOtherSnapshots() throws IOException {
+    ShortestPathTreeCache cache = new ShortestPathTreeCache(10 * treeBytes);
+    lookUp(cache, "0,0", 2);
+    cache.put("0,0", tree("0,0"));
+    DijkstraStreetSearcher other = new DijkstraStreetSearcher(new SparseGraph<>());
+    other.loadNetwork(network);
+    assertNull(cache.get("0,0", other.shortestPathTree("0,0").graph()));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.bytes());
+  }
+
+  @Test
+  @DisplayName("threads asking for the same hot start at once build its tree only once")
+  public void buildsEachTreeOnce() throws InterruptedException, ExecutionException {
+    ShortestPathTreeCache cache = new ShortestPathTreeCache(10 * treeBytes);
+    lookUp(cache, "0,0", 2);
+    ShortestPathTree tree = tree("0,0");
+    AtomicInteger builds = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ShortestPathTree>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> cache.get("0,0", snapshot, () -> {
+          builds.incrementAndGet();
+          try {
+            //hold the build until the other threads have asked too
+            release.await();
+          } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+          }
+          return tree;
+        })));
+      }
+      Thread.sleep(200);
+      release.countDown();
+      for (Future<ShortestPathTree> result : results) {
+        assertSame(tree, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, builds.get());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  @DisplayName("answers from cached trees match Dijkstra, also after a road changes")
+  public void searcherMatchesDijkstra() throws IOException {
+    SparseGraph<String, String> plainGraph = new SparseGraph<>();
+    StreetSearcher plain = new DijkstraStreetSearcher(plainGraph);
+    plain.loadNetwork(network);
+    searcher.setTreeCacheBudget(4 * treeBytes);
+    ShortestPathTreeCache cache = searcher.treeCache();
+    TestNetworks.assertSamePaths(plain, searcher, endpoints, endpoints);
+    assertTrue(cache.hits() > 0);
+    assertTrue(cache.size() > 0);
+    assertTrue(cache.bytes() <= cache.maxBytes());
+
+    String road = searcher.findShortestPath("0,0", "3,3").road(0);
+    for (SparseGraph<String, String> g : List.of(graph, plainGraph)) {
+      for (Edge<String> e : g.edges()) {
+        if (e.get().equals(road)) {
+          g.weight(e, 10000);
+        }
+      }
+    }
+    assertEquals(0, cache.size());
+    TestNetworks.assertSamePaths(plain, searcher, endpoints, endpoints);
+  }
+}
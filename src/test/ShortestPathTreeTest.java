@@ -0,0 +1,105 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.PathResult;
+import hw8.spp.ShortestPathTree;
+import hw8.spp.StreetSearcher;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShortestPathTreeTest {
+
+  private List<String> endpoints;
+  private DijkstraStreetSearcher searcher;
+
+  @BeforeEach
+  public void loadNetwork() throws IOException {
+    StreetSearcher.VERBOSE = false;
+    List<String> roads = TestNetworks.grid(6, 6, 19);
+    endpoints = TestNetworks.endpoints(roads);
+    searcher = new DijkstraStreetSearcher(new SparseGraph<>());
+    searcher.loadNetwork(TestNetworks.write(roads));
+  }
+
+  // Check the path of the tree to end against a single query from the start of the tree
+  private void assertSamePath(ShortestPathTree tree, String end) {
+    CsrGraph<String, String> csr = tree.graph();
+    PathResult want = searcher.findShortestPath(csr.vertex(tree.source()), end);
+    PathResult got = tree.path(csr.id(end));
+    assertEquals(want.found(), got.found());
+    assertEquals(want.totalDistance(), got.totalDistance(), 1e-9);
+    assertEquals(want.vertices(), got.vertices());
+    assertEquals(want.roads(), got.roads());
+    if (want.found()) {
+      assertEquals(want.totalDistance(), tree.distance(end), 1e-9);
+    }
+  }
+
+  // Check that end was not settled by the tree
+  private void assertNotSettled(ShortestPathTree tree, String end) {
+    int v = tree.graph().id(end);
+    assertFalse(tree.path(v).found());
+    assertEquals(Double.POSITIVE_INFINITY, tree.distance(v), 0);
+    assertEquals(-1, tree.predecessor(v));
+  }
+
+  @Test
+  @DisplayName("the full tree holds the path of findShortestPath to every endpoint")
+  public void fullTreeMatchesQueries() {
+    for (String start : List.of("0,0", "3,2", "5,5")) {
+      ShortestPathTree tree = searcher.shortestPathTree(start);
+      for (String end : endpoints) {
+        assertSamePath(tree, end);
+      }
+      //the island cannot be reached from the grid
+      assertNotSettled(tree, "100,100");
+      assertTrue(tree.path(tree.source()).roads().isEmpty());
+      assertEquals(0, tree.distance(start), 0);
+    }
+  }
+
+  @Test
+  @DisplayName("a tree to a few ends stops once they are settled, leaving farther endpoints out")
+  public void stopsOnceEndsAreSettled() {
+    ShortestPathTree full = searcher.shortestPathTree("0,0");
+    ShortestPathTree near = searcher.shortestPathTree("0,0", List.of("1,0", "0,1", "1,1"));
+    assertTrue(near.settled() < full.settled());
+    for (String end : List.of("1,0", "0,1", "1,1")) {
+      assertSamePath(near, end);
+    }
+    assertNotSettled(near, "5,5");
+    //every vertex it did settle has its final distance
+    for (String end : endpoints) {
+      double d = near.distance(end);
+      if (d != Double.POSITIVE_INFINITY) {
+        assertEquals(full.distance(end), d, 1e-9);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("an unreachable end is reported as not found and the reachable ends are still right")
+  public void unreachableEnd() {
+    ShortestPathTree tree = searcher.shortestPathTree("0,0", List.of("100,100", "4,4"));
+    assertNotSettled(tree, "100,100");
+    assertSamePath(tree, "100,100");
+    assertSamePath(tree, "4,4");
+    //looking for the island settles everything reachable
+    assertEquals(searcher.shortestPathTree("0,0").settled(), tree.settled());
+  }
+
+  @Test
+  @DisplayName("an end that is not an endpoint is rejected")
+  public void invalidEnd() {
+    assertThrows(IllegalArgumentException.class,
+        () -> searcher.shortestPathTree("0,0", List.of("4,4", "nowhere")));
+    assertThrows(IllegalArgumentException.class, () -> searcher.shortestPathTree("nowhere"));
+  }
+}
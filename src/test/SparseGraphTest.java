@@ -1,7 +1,19 @@
 package hw8;
 
+import exceptions.InsertionException;
+import exceptions.PositionException;
+import hw8.graph.Edge;
 import hw8.graph.Graph;
 import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import hw8.graph.WeightedGraph;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class SparseGraphTest extends GraphTest {
 
@@ -9,4 +21,119 @@ public class SparseGraphTest extends GraphTest {
   protected Graph<String, String> createGraph() {
     return new SparseGraph<>();
   }
+
+  //WEIGHT TESTS
+
+  @Test
+  @DisplayName("weight(e) is 0 before it is set and returns the weight after")
+  public void weightDefaultsToZeroAndCanBeSet() {
+    WeightedGraph<String, String> weighted = (WeightedGraph<String, String>) graph;
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Edge<String> e1 = graph.insert(v1, v2, "v1-v2");
+    assertEquals(0.0, weighted.weight(e1), 0);
+    weighted.weight(e1, 12.5);
+    assertEquals(12.5, weighted.weight(e1), 0);
+  }
+
+  @Test
+  @DisplayName("clearLabels() does not reset edge weights")
+  public void clearLabelsKeepsWeights() {
+    WeightedGraph<String, String> weighted = (WeightedGraph<String, String>) graph;
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Edge<String> e1 = graph.insert(v1, v2, "v1-v2");
+    weighted.weight(e1, 3.0);
+    graph.label(e1, "label");
+    graph.clearLabels();
+    assertNull(graph.label(e1));
+    assertEquals(3.0, weighted.weight(e1), 0);
+  }
+
+  @Test
+  @DisplayName("weight(e) throws exception once e is removed")
+  public void weightOfRemovedEdgeThrowsException() {
+    WeightedGraph<String, String> weighted = (WeightedGraph<String, String>) graph;
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Edge<String> e1 = graph.insert(v1, v2, "v1-v2");
+    graph.remove(e1);
+    try {
+      weighted.weight(e1);
+      fail("Failed to throw PositionException");
+    } catch (PositionException ex) {
+      return;
+    }
+  }
+
+  @Test
+  @DisplayName("labels set after clearLabels() are kept and earlier ones read as null")
+  public void labelsSetAfterClearLabelsAreKept() {
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Edge<String> e1 = graph.insert(v1, v2, "v1-v2");
+    graph.label(v1, "old");
+    graph.label(e1, "old");
+    graph.clearLabels();
+    graph.label(v2, "new");
+    assertNull(graph.label(v1));
+    assertNull(graph.label(e1));
+    assertEquals("new", graph.label(v2));
+    graph.clearLabels();
+    assertNull(graph.label(v2));
+  }
+
+  //VERTEX ID TESTS
+
+  @Test
+  @DisplayName("inserting an element equal to an existing vertex's element throws exception")
+  public void insertEqualElementThrowsInsertionException() {
+    graph.insert("v1");
+    try {
+      graph.insert(new String("v1"));
+      fail("Failed to throw InsertionException");
+    } catch (InsertionException ex) {
+      return;
+    }
+  }
+
+  @Test
+  @DisplayName("id(v) is stable and the id of a removed vertex is reused")
+  public void idsAreStableAndReused() {
+    SparseGraph<String, String> sparse = (SparseGraph<String, String>) graph;
+    Vertex<String> v1 = graph.insert("v1");
+    Vertex<String> v2 = graph.insert("v2");
+    Vertex<String> v3 = graph.insert("v3");
+    int id2 = sparse.id(v2);
+    int id3 = sparse.id(v3);
+    graph.remove(v2);
+    assertEquals(id3, sparse.id(v3));
+    Vertex<String> v4 = graph.insert("v4");
+    assertEquals(id2, sparse.id(v4));
+    assertTrue(sparse.id(v1) < sparse.vertexCapacity());
+    try {
+      sparse.id(v2);
+      fail("Failed to throw PositionException");
+    } catch (PositionException ex) {
+      return;
+    }
+  }
+
+  //EDGES VIEW TESTS
+
+  @Test
+  @DisplayName("a parallel stream over edges() sees every edge exactly once")
+  public void parallelEdgeStreamSeesEveryEdgeOnce() {
+    Vertex<String> hub = graph.insert("hub");
+    for (int i = 0; i < 500; i++) {
+      Vertex<String> v = graph.insert("v" + i);
+      graph.insert(hub, v, "out" + i);
+      graph.insert(v, hub, "in" + i);
+    }
+    Set<String> names = StreamSupport.stream(graph.edges().spliterator(), true)
+        .map(Edge::get)
+        .collect(Collectors.toSet());
+    assertEquals(1000, names.size());
+    assertEquals(1000, StreamSupport.stream(graph.edges().spliterator(), true).count());
+  }
 }
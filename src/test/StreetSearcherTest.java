@@ -0,0 +1,159 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.CsrGraphFile;
+import hw8.graph.Edge;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import hw8.spp.BidirectionalDijkstraStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.Pair;
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreetSearcherTest {
+
+  private SparseGraph<String, String> graph;
+  private StreetSearcher searcher;
+
+  @BeforeEach
+  public void setupSearcher() {
+    StreetSearcher.VERBOSE = false;
+    graph = new SparseGraph<>();
+    searcher = new DijkstraStreetSearcher(graph);
+  }
+
+  @Test
+  @DisplayName("a road whose reverse direction is already loaded is left out, not added with length 0")
+  public void halfAddedRoadIsRemoved() throws IOException {
+    //a binary network with the one-way road b -> a
+    SparseGraph<String, String> oneWay = new SparseGraph<>();
+    Vertex<String> a = oneWay.insert("a");
+    Vertex<String> b = oneWay.insert("b");
+    Edge<String> ba = oneWay.insert(b, a, "b-a");
+    oneWay.label(ba, 3.0);
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(new CsrGraph<>(oneWay), file);
+    searcher.loadBinaryNetwork(file);
+
+    searcher.loadNetwork(TestNetworks.write(List.of("a b 5.0 a-b")));
+    PathResult path = searcher.findShortestPath("a", "b");
+    assertFalse(path.found());
+    assertEquals(3.0, searcher.findShortestPath("b", "a").totalDistance(), 0);
+  }
+
+  @Test
+  @DisplayName("endpoints without roads in a binary network are loaded too")
+  public void binaryNetworkKeepsIsolatedEndpoints() throws IOException {
+    SparseGraph<String, String> network = new SparseGraph<>();
+    Vertex<String> a = network.insert("a");
+    Vertex<String> b = network.insert("b");
+    network.insert("c");
+    Edge<String> ab = network.insert(a, b, "a-b");
+    network.label(ab, 2.0);
+    File file = File.createTempFile("network", ".bin");
+    file.deleteOnExit();
+    CsrGraphFile.write(new CsrGraph<>(network), file);
+    searcher.loadBinaryNetwork(file);
+
+    PathResult path = searcher.findShortestPath("a", "c");
+    assertNotNull(path);
+    assertFalse(path.found());
+    assertEquals(2.0, searcher.findShortestPath("a", "b").totalDistance(), 0);
+  }
+
+  @Test
+  @DisplayName("batch queries and distance matrices match one findShortestPath per pair")
+  public void batchApisMatchSingleQueries() throws IOException {
+    List<String> roads = TestNetworks.grid(6, 6, 13);
+    List<String> endpoints = TestNetworks.endpoints(roads);
+    File file = TestNetworks.write(roads);
+    Random random = new Random(1);
+    List<Pair<String, String>> pairs = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      pairs.add(Pair.of(endpoints.get(random.nextInt(endpoints.size())),
+          endpoints.get(random.nextInt(endpoints.size()))));
+    }
+    pairs.add(Pair.of("0,0", "nowhere"));
+    List<String> origins = endpoints.subList(0, 9);
+    List<String> destinations = endpoints.subList(5, endpoints.size());
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      //Dijkstra fills matrix rows with one tree each, bidirectional with one query per entry
+      for (StreetSearcher batch : List.of(new DijkstraStreetSearcher(new SparseGraph<>()),
+          new BidirectionalDijkstraStreetSearcher(new SparseGraph<>()))) {
+        batch.loadNetwork(file);
+        List<PathResult> pooled = batch.findShortestPaths(pairs);
+        List<PathResult> executed = batch.findShortestPaths(pairs, executor);
+        for (int i = 0; i < pairs.size(); i++) {
+          Pair<String, String> pair = pairs.get(i);
+          PathResult single = batch.findShortestPath(pair.first(), pair.second());
+          for (List<PathResult> results : List.of(pooled, executed)) {
+            PathResult result = results.get(i);
+            if (single == null) {
+              assertNull(result);
+            } else {
+              assertEquals(single.totalDistance(), result.totalDistance(), 1e-9);
+              assertEquals(single.vertices(), result.vertices());
+            }
+          }
+        }
+
+        double[] expected = new double[origins.size() * destinations.size()];
+        for (int i = 0; i < origins.size(); i++) {
+          for (int j = 0; j < destinations.size(); j++) {
+            expected[i * destinations.size() + j] =
+                batch.findShortestPath(origins.get(i), destinations.get(j)).totalDistance();
+          }
+        }
+        assertArrayEquals(expected, batch.distanceMatrix(origins, destinations), 1e-9);
+        assertArrayEquals(expected, batch.distanceMatrix(origins, destinations, executor), 1e-9);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("loading a network is reported as one change, later changes of the graph one each")
+  public void loadReportsOneChange() throws IOException {
+    int[] changes = {0};
+    SparseGraph<String, String> counted = new SparseGraph<>();
+    StreetSearcher counting = new DijkstraStreetSearcher(counted) {
+      @Override
+      protected void networkChanged() {
+        super.networkChanged();
+        changes[0]++;
+      }
+    };
+    File text = TestNetworks.write(TestNetworks.grid(5, 5, 2));
+    counting.loadNetwork(text);
+    assertEquals(1, changes[0]);
+
+    File binary = File.createTempFile("network", ".bin");
+    binary.deleteOnExit();
+    counting.saveNetwork(binary);
+    //loaded on top of the same roads, which are all skipped
+    changes[0] = 0;
+    counting.loadBinaryNetwork(binary);
+    assertEquals(1, changes[0]);
+
+    Edge<String> road = counted.edges().iterator().next();
+    counted.weight(road, counted.weight(road) + 1);
+    assertEquals(2, changes[0]);
+  }
+}
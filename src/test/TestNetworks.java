@@ -0,0 +1,119 @@
+package hw8;
+
+import hw8.spp.PathResult;
+import hw8.spp.StreetSearcher;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Small road networks written to temporary files for the searcher tests, and
+ * checks comparing the answers of two searchers.
+ */
+final class TestNetworks {
+
+  private TestNetworks() {
+  }
+
+  /**
+   * Write a network file, one road per line in loadNetwork's format.
+   * @param lines roads as "end1 end2 distance name"
+   * @return temporary file deleted on exit
+   * @throws IOException if the file cannot be written
+   */
+  static File write(List<String> lines) throws IOException {
+    File file = File.createTempFile("network", ".txt");
+    file.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+      for (String line : lines) {
+        out.println(line);
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Roads of a width by height grid with endpoints named by their "x,y" coordinates,
+   * some diagonals and a parallel road, plus an island of two endpoints that cannot
+   * be reached from the grid. Lengths are random and at least the straight-line
+   * distance times 100, so shortest paths are unique.
+   * @param width endpoints along x
+   * @param height endpoints along y
+   * @param seed seed of the lengths
+   * @return the roads
+   */
+  static List<String> grid(int width, int height, long seed) {
+    Random random = new Random(seed);
+    List<String> lines = new ArrayList<>();
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (x + 1 < width) {
+          lines.add(road(x, y, x + 1, y, 100 + 100 * random.nextDouble()));
+        }
+        if (y + 1 < height) {
+          lines.add(road(x, y, x, y + 1, 100 + 100 * random.nextDouble()));
+        }
+        if (x + 1 < width && y + 1 < height && random.nextInt(4) == 0) {
+          lines.add(road(x, y, x + 1, y + 1, 142 + 100 * random.nextDouble()));
+        }
+      }
+    }
+    //a second road between the same endpoints, only the first one read is kept
+    lines.add(road(0, 0, 1, 0, 1 + random.nextDouble()));
+    lines.add(road(100, 100, 101, 100, 150));
+    return lines;
+  }
+
+  // One road line between grid points
+  private static String road(int x1, int y1, int x2, int y2, double length) {
+    return String.format(Locale.ROOT, "%d,%d %d,%d %.4f Road%d_%d_%d_%d",
+        x1, y1, x2, y2, length, x1, y1, x2, y2);
+  }
+
+  /**
+   * Endpoint names of the roads, each once, in the order they first appear.
+   * @param lines roads
+   * @return endpoint names
+   */
+  static List<String> endpoints(List<String> lines) {
+    List<String> names = new ArrayList<>();
+    for (String line : lines) {
+      String[] parts = line.split(" ");
+      for (int i = 0; i < 2; i++) {
+        if (!names.contains(parts[i])) {
+          names.add(parts[i]);
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Check that actual finds the same paths as expected between all the given pairs.
+   * @param expected searcher trusted to be right
+   * @param actual searcher under test
+   * @param starts start endpoints
+   * @param ends end endpoints
+   */
+  static void assertSamePaths(StreetSearcher expected, StreetSearcher actual, List<String> starts,
+                              List<String> ends) {
+    for (String start : starts) {
+      for (String end : ends) {
+        PathResult want = expected.findShortestPath(start, end);
+        PathResult got = actual.findShortestPath(start, end);
+        assertNotNull(got);
+        assertEquals(want.found(), got.found());
+        assertEquals(want.totalDistance(), got.totalDistance(), 1e-6);
+        assertEquals(want.vertices(), got.vertices());
+        assertEquals(want.roads(), got.roads());
+      }
+    }
+  }
+}